@@ -0,0 +1,90 @@
+package com.fitness.benchmark;
+
+import com.fitness.FitnessBackendApplication;
+import com.fitness.model.Exercise;
+import com.fitness.model.User;
+import com.fitness.model.Workout;
+import com.fitness.repository.ExerciseRepository;
+import com.fitness.repository.UserRepository;
+import com.fitness.service.WorkoutService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end createWorkout latency against the database configured for the application
+ * (override with SPRING_DATASOURCE_URL / _USERNAME / _PASSWORD). batchSize=1 approximates
+ * the old one-statement-per-row behaviour.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateWorkoutBenchmark {
+
+    private static final String USERNAME = "benchmark_user";
+
+    @Param({ "1", "5", "20", "50" })
+    private int exerciseCount;
+
+    @Param({ "1", "50" })
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private WorkoutService workoutService;
+    private JdbcTemplate jdbcTemplate;
+    private Long userId;
+    private List<WorkoutService.WorkoutExerciseInput> inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FitnessBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "cache.far.enabled=false",
+                        "logging.level.com.fitness=WARN")
+                .run();
+        workoutService = context.getBean(WorkoutService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        userId = userRepository.findByUsername(USERNAME)
+                .orElseGet(() -> userRepository.save(User.builder()
+                        .username(USERNAME)
+                        .email(USERNAME + "@example.com")
+                        .passwordHash("x")
+                        .build()))
+                .getId();
+
+        List<Exercise> exercises = context.getBean(ExerciseRepository.class).findAll();
+        inputs = new ArrayList<>(exerciseCount);
+        for (int i = 0; i < exerciseCount; i++) {
+            inputs.add(new WorkoutService.WorkoutExerciseInput(exercises.get(i % exercises.size()).getId(), 3, 10,
+                    BigDecimal.valueOf(60), null, i, null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE actor_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        context.close();
+    }
+
+    @Benchmark
+    public Workout createWorkout() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return workoutService.createWorkout(userId, "Benchmark", null, now, now.plusHours(1), true, inputs);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fitness.benchmark;
+
+import com.fitness.config.CachingDocumentProvider;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.ParseAndValidate;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse, validate and execute of the feed and workout list queries against in-memory data.
+ * {@code execute} pays for all three steps on every call, as every request did before the
+ * document cache; {@code executeCached} is the steady state with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQlBenchmark {
+
+    @Param({ "feed", "userWorkouts" })
+    private String query;
+
+    @Param({ "20" })
+    private int pageSize;
+
+    private GraphQLSchema schema;
+    private GraphQL graphQl;
+    private GraphQL cachedGraphQl;
+    private String queryText;
+    private Document document;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        schema = GraphQlFixture.schema(pageSize);
+        graphQl = GraphQL.newGraphQL(schema).build();
+        cachedGraphQl = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new CachingDocumentProvider(100, new SimpleMeterRegistry()))
+                .build();
+        queryText = GraphQlFixture.query(query);
+        variables = Map.of("page", 0, "size", pageSize);
+        document = ParseAndValidate.parse(input()).getDocument();
+        ExecutionResult result = graphQl.execute(input());
+        if (!result.getErrors().isEmpty()) {
+            throw new IllegalStateException("Benchmark query failed: " + result.getErrors());
+        }
+    }
+
+    @Benchmark
+    public Document parse() {
+        return ParseAndValidate.parse(input()).getDocument();
+    }
+
+    @Benchmark
+    public List<ValidationError> validate() {
+        return ParseAndValidate.validate(schema, document);
+    }
+
+    @Benchmark
+    public ExecutionResult execute() {
+        return graphQl.execute(input());
+    }
+
+    @Benchmark
+    public ExecutionResult executeCached() {
+        return cachedGraphQl.execute(input());
+    }
+
+    private ExecutionInput input() {
+        return ExecutionInput.newExecutionInput(queryText)
+                .variables(variables)
+                .build();
+    }
+}
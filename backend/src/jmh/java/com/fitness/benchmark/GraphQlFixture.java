@@ -0,0 +1,188 @@
+package com.fitness.benchmark;
+
+import com.fitness.graphql.QueryResolver;
+import com.fitness.model.ActivityFeed;
+import com.fitness.model.Exercise;
+import com.fitness.model.User;
+import com.fitness.model.Workout;
+import com.fitness.model.WorkoutExercise;
+import graphql.GraphQL;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application schema wired to in-memory data, so GraphQL benchmarks measure parsing,
+ * validation, execution and serialization without the database or Spring in the way.
+ * Queries mirror what the frontend sends for the home feed and the workout list.
+ */
+final class GraphQlFixture {
+
+    static final String FEED_QUERY = """
+            query Feed($page: Int, $size: Int) {
+              feed(page: $page, size: $size) {
+                hasNext
+                content {
+                  id
+                  type
+                  payload
+                  createdAt
+                  originUser { id username displayName avatarUrl }
+                }
+              }
+            }""";
+
+    static final String USER_WORKOUTS_QUERY = """
+            query UserWorkouts($page: Int, $size: Int) {
+              userWorkouts(page: $page, size: $size) {
+                totalPages
+                totalElements
+                content {
+                  id
+                  title
+                  notes
+                  startTime
+                  endTime
+                  durationSeconds
+                  caloriesBurned
+                  isPrivate
+                  likeCount
+                  commentCount
+                  user { id username displayName avatarUrl }
+                  exercises {
+                    id
+                    sets
+                    reps
+                    weightKg
+                    orderIndex
+                    exercise { id name category }
+                  }
+                }
+              }
+            }""";
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2025, 1, 1, 7, 0, 0, 0, ZoneOffset.UTC);
+
+    private GraphQlFixture() {
+    }
+
+    static String query(String name) {
+        return switch (name) {
+            case "feed" -> FEED_QUERY;
+            case "userWorkouts" -> USER_WORKOUTS_QUERY;
+            default -> throw new IllegalArgumentException("Unknown query " + name);
+        };
+    }
+
+    static GraphQL graphQl(int pageSize) {
+        return GraphQL.newGraphQL(schema(pageSize)).build();
+    }
+
+    static GraphQLSchema schema(int pageSize) {
+        User user = user(1);
+        List<Workout> workouts = workouts(user, pageSize);
+        List<ActivityFeed> feed = feed(pageSize);
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .scalar(ExtendedScalars.DateTime)
+                .scalar(ExtendedScalars.Date)
+                .scalar(ExtendedScalars.Json)
+                .type("Query", type -> type
+                        .dataFetcher("feed", env -> new QueryResolver.FeedSlice(feed, true))
+                        .dataFetcher("userWorkouts", env -> new QueryResolver.WorkoutPage(workouts, 10,
+                                10 * workouts.size())))
+                .build();
+        try (Reader reader = new InputStreamReader(schemaStream(), StandardCharsets.UTF_8)) {
+            return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(reader), wiring);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Workouts of three to six exercises, as a typical session logs
+    static List<Workout> workouts(User user, int count) {
+        List<Exercise> catalog = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            catalog.add(Exercise.builder()
+                    .id((long) i + 1)
+                    .name("Exercise " + (i + 1))
+                    .category(Exercise.ExerciseCategory.values()[i % Exercise.ExerciseCategory.values().length])
+                    .build());
+        }
+        List<Workout> workouts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OffsetDateTime start = START.plusDays(i);
+            Workout workout = Workout.builder()
+                    .id((long) i + 1)
+                    .user(user)
+                    .title("Workout " + (i + 1))
+                    .notes("Felt strong, added a set on the last exercise")
+                    .startTime(start)
+                    .endTime(start.plusMinutes(70))
+                    .durationSeconds(4200)
+                    .caloriesBurned(450)
+                    .likeCount(i % 7)
+                    .commentCount(i % 3)
+                    .build();
+            workout.setCreatedAt(start.plusMinutes(75));
+            for (int j = 0; j < 3 + i % 4; j++) {
+                workout.getExercises().add(WorkoutExercise.builder()
+                        .id((long) i * 10 + j)
+                        .workout(workout)
+                        .exercise(catalog.get((i + j) % catalog.size()))
+                        .sets(4)
+                        .reps(8)
+                        .weightKg(BigDecimal.valueOf(60 + j * 12.5))
+                        .orderIndex(j)
+                        .build());
+            }
+            workouts.add(workout);
+        }
+        return workouts;
+    }
+
+    static User user(long id) {
+        User user = User.builder()
+                .id(id)
+                .username("athlete_" + id)
+                .email("athlete_" + id + "@example.com")
+                .passwordHash("x")
+                .displayName("Athlete " + id)
+                .avatarUrl("https://cdn.example.com/avatars/" + id + ".jpg")
+                .build();
+        user.setCreatedAt(START);
+        return user;
+    }
+
+    private static List<ActivityFeed> feed(int count) {
+        List<ActivityFeed> feed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ActivityFeed activity = ActivityFeed.builder()
+                    .id((long) i + 1)
+                    .originUser(user(i % 25 + 2))
+                    .type(ActivityFeed.ActivityType.WORKOUT_CREATED)
+                    .payload("{\"workoutId\":" + (i + 1) + ",\"title\":\"Workout " + (i + 1) + "\"}")
+                    .build();
+            activity.setCreatedAt(START.plusHours(i));
+            feed.add(activity);
+        }
+        return feed;
+    }
+
+    private static InputStream schemaStream() throws IOException {
+        return new ClassPathResource("graphql/schema.graphqls").getInputStream();
+    }
+}
@@ -0,0 +1,62 @@
+package com.fitness.benchmark;
+
+import com.fitness.service.SetSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SetSeriesBenchmark {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Param({ "100000" })
+    private int points;
+
+    @Param({ "100", "1000" })
+    private int buckets;
+
+    private SetSeries series;
+    private long from;
+    private long to;
+
+    private float[] min;
+    private float[] max;
+    private double[] sum;
+    private int[] count;
+
+    // Several sets a day for years, with a slow upward trend
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        series = new SetSeries();
+        long time = 1_500_000_000_000L;
+        for (int i = 0; i < points; i++) {
+            time += random.nextInt(4) == 0 ? DAY : 60_000;
+            series.addWorkout(time, i, new float[] { 40 + i / 2000f + random.nextInt(10) },
+                    new int[] { 1 + random.nextInt(12) }, new int[] { 1 + random.nextInt(5) });
+        }
+        from = series.firstTime();
+        to = series.lastTime() + 1;
+        min = new float[buckets];
+        max = new float[buckets];
+        sum = new double[buckets];
+        count = new int[buckets];
+    }
+
+    @Benchmark
+    public int wholeHistory() {
+        return series.aggregate(from, to, SetSeries.Metric.ESTIMATED_ONE_REP_MAX, min, max, sum, count);
+    }
+
+    @Benchmark
+    public int lastTenth() {
+        return series.aggregate(to - (to - from) / 10, to, SetSeries.Metric.VOLUME, min, max, sum, count);
+    }
+}
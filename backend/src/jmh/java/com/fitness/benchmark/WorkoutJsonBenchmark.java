@@ -0,0 +1,52 @@
+package com.fitness.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON writing of workout graphs as the GraphQL endpoint sends them: the executed result
+ * map of a {@code userWorkouts} page, through an ObjectMapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkoutJsonBenchmark {
+
+    @Param({ "20", "100" })
+    private int workouts;
+
+    private ObjectMapper objectMapper;
+    private GraphQL graphQl;
+    private ExecutionInput input;
+    private Map<String, Object> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        graphQl = GraphQlFixture.graphQl(workouts);
+        input = ExecutionInput.newExecutionInput(GraphQlFixture.USER_WORKOUTS_QUERY)
+                .variables(Map.of("page", 0, "size", workouts))
+                .build();
+        response = graphQl.execute(input).toSpecification();
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] executeAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(graphQl.execute(input).toSpecification());
+    }
+}
@@ -0,0 +1,421 @@
+package com.fitness.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of GraphQL operations as users created by {@link SocialGraphGenerator}
+ * and reports throughput and latency percentiles per operation.
+ * <p>
+ * With {@code --rate} the driver runs open-loop: operations are scheduled at a fixed rate and
+ * latency is measured from the scheduled start, so a stalled server shows up as latency instead
+ * of as fewer requests. Without it every worker sends its next request as soon as the last one
+ * returned. Per-operation histograms are written as HdrHistogram percentile files to
+ * {@code --out}, next to a summary.csv.
+ * <p>
+ * All sessions come from one address, so start the backend with {@code --rate-limit.enabled=false}.
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dloadtest.main=com.fitness.loadtest.LoadDriver \
+ *     -Dexec.args="--first-user-id=1001 --last-user-id=1001000 --concurrency=64 --duration=2m"
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final String FEED = """
+            query Feed($size: Int) {
+              feed(page: 0, size: $size) {
+                hasNext
+                content { id type payload createdAt originUser { id username displayName avatarUrl } }
+              }
+            }""";
+
+    private static final String USER_WORKOUTS = """
+            query UserWorkouts($userId: ID, $size: Int) {
+              userWorkouts(userId: $userId, page: 0, size: $size) {
+                totalElements
+                content {
+                  id title startTime durationSeconds likeCount commentCount isLiked
+                  user { id username }
+                  exercises { sets reps weightKg exercise { id name } }
+                }
+              }
+            }""";
+
+    private static final String CREATE_WORKOUT = """
+            mutation CreateWorkout($input: CreateWorkoutInput!) {
+              createWorkout(input: $input) { id }
+            }""";
+
+    private static final String LIKE = """
+            mutation Like($id: ID!) {
+              like(parentType: WORKOUT, parentId: $id)
+            }""";
+
+    private static final String FOLLOW = """
+            mutation Follow($userId: ID!) {
+              follow(userId: $userId)
+            }""";
+
+    private static final String LOGIN = """
+            mutation Login($input: LoginInput!) {
+              login(input: $input) { token }
+            }""";
+
+    private static final int HIGHEST_LATENCY_MICROS = 60_000_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final long firstUserId;
+    private final long lastUserId;
+    private final int pageSize;
+    private final Map<String, Integer> mix;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+    private final int totalWeight;
+
+    // Workout ids seen in responses, for likes
+    private final AtomicLongArray seenWorkouts = new AtomicLongArray(4096);
+    private final AtomicLong seenCount = new AtomicLong();
+
+    private List<String> tokens;
+    private long[] exerciseIds;
+
+    LoadDriver(Options options) {
+        this.endpoint = URI.create(options.string("base-url", "http://localhost:8080") + "/graphql");
+        this.firstUserId = options.number("first-user-id", 1);
+        this.lastUserId = options.number("last-user-id", 1000);
+        this.pageSize = options.integer("page-size", 20);
+        this.mix = parseMix(options.string("mix", "feed:50,userWorkouts:25,createWorkout:10,like:10,follow:5"));
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (String operation : mix.keySet()) {
+            recorders.put(operation, new Recorder(HIGHEST_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        new LoadDriver(options).run(options);
+    }
+
+    void run(Options options) throws Exception {
+        int concurrency = options.integer("concurrency", 32);
+        double rate = options.decimal("rate", 0);
+        Duration warmup = options.duration("warmup", Duration.ofSeconds(30));
+        Duration duration = options.duration("duration", Duration.ofMinutes(2));
+        Path out = Path.of(options.string("out", "target/loadtest"));
+        long seed = options.number("seed", 42);
+
+        // Daemon threads, so a failed run exits instead of leaving idle workers behind
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        });
+        tokens = login(workers, options.integer("sessions", 200), seed);
+        exerciseIds = exerciseIds();
+        System.out.printf("Logged in %d sessions; %s for %s after %s warmup, %d workers%s%n", tokens.size(), mix,
+                duration, warmup, concurrency, rate > 0 ? String.format(Locale.ROOT, ", %.0f ops/s", rate) : "");
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        // Each worker gets an equal share of the target rate
+        long interval = rate > 0 ? (long) (concurrency * 1e9 / rate) : 0;
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            SplittableRandom random = new SplittableRandom(seed + i);
+            long firstStart = start + (interval * i) / concurrency;
+            running.add(workers.submit(() -> work(random, firstStart, interval, end)));
+        }
+
+        sleepUntil(measureFrom);
+        Map<String, Histogram> totals = new LinkedHashMap<>();
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            entry.getValue().getIntervalHistogram();
+            errors.get(entry.getKey()).reset();
+            totals.put(entry.getKey(), new Histogram(HIGHEST_LATENCY_MICROS, 3));
+        }
+        while (System.nanoTime() < end) {
+            sleepUntil(Math.min(end, System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+            StringBuilder line = new StringBuilder();
+            for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+                Histogram recent = entry.getValue().getIntervalHistogram();
+                totals.get(entry.getKey()).add(recent);
+                line.append(String.format(Locale.ROOT, "  %s %d p99=%.1fms", entry.getKey(),
+                        recent.getTotalCount(), recent.getValueAtPercentile(99) / 1000.0));
+            }
+            System.out.println(Instant.now().truncatedTo(ChronoUnit.SECONDS) + line.toString());
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+        workers.shutdown();
+        // Requests that were still in flight at the end
+        recorders.forEach((operation, recorder) -> totals.get(operation).add(recorder.getIntervalHistogram()));
+        report(totals, duration, out);
+    }
+
+    private void work(SplittableRandom random, long firstStart, long interval, long end) {
+        long scheduled = firstStart;
+        while (true) {
+            long started;
+            if (interval > 0) {
+                sleepUntil(scheduled);
+                started = scheduled;
+                scheduled += interval;
+            } else {
+                started = System.nanoTime();
+            }
+            if (started >= end) {
+                return;
+            }
+            String operation = pick(random);
+            String token = tokens.get(random.nextInt(tokens.size()));
+            boolean ok;
+            try {
+                ok = execute(operation, token, random);
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long micros = (System.nanoTime() - started) / 1000;
+            recorders.get(operation).recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+            if (!ok) {
+                errors.get(operation).increment();
+            }
+        }
+    }
+
+    private boolean execute(String operation, String token, SplittableRandom random)
+            throws IOException, InterruptedException {
+        return switch (operation) {
+            case "feed" -> collectWorkouts(send(FEED, Map.of("size", pageSize), token));
+            case "userWorkouts" -> {
+                Map<String, Object> variables = new LinkedHashMap<>();
+                variables.put("size", pageSize);
+                // Half of the views are of one's own log, half of someone else's profile
+                if (random.nextBoolean()) {
+                    variables.put("userId", randomUserId(random));
+                }
+                yield collectWorkouts(send(USER_WORKOUTS, variables, token));
+            }
+            case "createWorkout" -> succeeded(send(CREATE_WORKOUT, Map.of("input", workoutInput(random)), token));
+            case "like" -> {
+                long workoutId = seenWorkout(random);
+                yield workoutId > 0 && succeeded(send(LIKE, Map.of("id", workoutId), token));
+            }
+            case "follow" -> succeeded(send(FOLLOW, Map.of("userId", randomUserId(random)), token));
+            default -> throw new IllegalArgumentException("Unknown operation " + operation);
+        };
+    }
+
+    private JsonNode send(String query, Map<String, Object> variables, String token)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        objectMapper.writeValueAsBytes(Map.of("query", query, "variables", variables))));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static boolean succeeded(JsonNode response) {
+        return response != null && !response.has("errors");
+    }
+
+    private boolean collectWorkouts(JsonNode response) throws IOException {
+        if (!succeeded(response)) {
+            return false;
+        }
+        for (JsonNode page : response.findValues("content")) {
+            for (JsonNode entry : page) {
+                long id;
+                if (entry.has("payload")) {
+                    // Feed payloads are JSON text
+                    JsonNode payload = entry.get("payload");
+                    id = (payload.isTextual() ? objectMapper.readTree(payload.asText()) : payload)
+                            .path("workoutId").asLong();
+                } else {
+                    id = entry.path("id").asLong();
+                }
+                if (id > 0) {
+                    seenWorkouts.set((int) (seenCount.getAndIncrement() % seenWorkouts.length()), id);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Zero until a feed or workout list came back; the like is then counted as an error
+    private long seenWorkout(SplittableRandom random) {
+        int seen = (int) Math.min(seenCount.get(), seenWorkouts.length());
+        return seen > 0 ? seenWorkouts.get(random.nextInt(seen)) : 0;
+    }
+
+    private Map<String, Object> workoutInput(SplittableRandom random) {
+        Instant start = Instant.now().minus(90, ChronoUnit.MINUTES);
+        List<Map<String, Object>> exercises = new ArrayList<>();
+        int count = 3 + random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            exercises.add(Map.of(
+                    "exerciseId", exerciseIds[random.nextInt(exerciseIds.length)],
+                    "sets", 3 + random.nextInt(3),
+                    "reps", 3 + random.nextInt(10),
+                    "weightKg", 20 + random.nextInt(140),
+                    "orderIndex", i));
+        }
+        return Map.of(
+                "title", "Load test session",
+                "startTime", start.toString(),
+                "endTime", start.plus(60, ChronoUnit.MINUTES).toString(),
+                "exercises", exercises);
+    }
+
+    private List<String> login(ExecutorService workers, int sessions, long seed) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Future<String>> logins = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            String username = SocialGraphGenerator.USERNAME_PREFIX + randomUserId(random);
+            logins.add(workers.submit(() -> {
+                JsonNode response = send(LOGIN, Map.of("input",
+                        Map.of("username", username, "password", SocialGraphGenerator.PASSWORD)), null);
+                return succeeded(response) ? response.path("data").path("login").path("token").asText() : null;
+            }));
+        }
+        List<String> tokens = new ArrayList<>();
+        for (Future<String> login : logins) {
+            String token = login.get();
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new IllegalStateException("No session could log in; check --first-user-id/--last-user-id");
+        }
+        return tokens;
+    }
+
+    private long[] exerciseIds() throws IOException, InterruptedException {
+        JsonNode response = send("query { exercises(limit: 50) { id } }", Map.of(), tokens.get(0));
+        if (!succeeded(response)) {
+            throw new IllegalStateException("Could not load exercises: " + response);
+        }
+        List<Long> ids = new ArrayList<>();
+        response.path("data").path("exercises").forEach(exercise -> ids.add(exercise.path("id").asLong()));
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long randomUserId(SplittableRandom random) {
+        return firstUserId + random.nextLong(lastUserId - firstUserId + 1);
+    }
+
+    private String pick(SplittableRandom random) {
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void report(Map<String, Histogram> totals, Duration duration, Path out) throws IOException {
+        Files.createDirectories(out);
+        double seconds = duration.toMillis() / 1000.0;
+        StringBuilder csv = new StringBuilder(
+                "operation,count,errors,ops_per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+        System.out.printf("%n%-14s %9s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "ops/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long allErrors = 0;
+        for (Map.Entry<String, Histogram> entry : totals.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long failed = errors.get(entry.getKey()).sum();
+            all.add(histogram);
+            allErrors += failed;
+            csv.append(summaryLine(entry.getKey(), histogram, failed, seconds));
+            try (PrintStream file = new PrintStream(out.resolve(entry.getKey() + ".hgrm").toFile())) {
+                histogram.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+        csv.append(summaryLine("all", all, allErrors, seconds));
+        Files.writeString(out.resolve("summary.csv"), csv);
+        System.out.println("Histograms written to " + out.toAbsolutePath());
+    }
+
+    private static String summaryLine(String operation, Histogram histogram, long failed, double seconds) {
+        double[] percentiles = {
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0 };
+        double throughput = histogram.getTotalCount() / seconds;
+        System.out.printf(Locale.ROOT, "%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation,
+                histogram.getTotalCount(), failed, throughput, percentiles[0], percentiles[1], percentiles[2],
+                percentiles[3], percentiles[4]);
+        return String.format(Locale.ROOT, "%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f%n", operation,
+                histogram.getTotalCount(), failed, throughput, percentiles[0], percentiles[1], percentiles[2],
+                percentiles[3], percentiles[4]);
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.fitness.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@code --name=value} command line options with defaults.
+ */
+final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private Options() {
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.values.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    String string(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int integer(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    long number(String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    double decimal(String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+
+    // 30s, 5m, 1h
+    Duration duration(String name, Duration defaultValue) {
+        String value = values.get(name);
+        return value != null ? Duration.parse("PT" + value.toUpperCase(Locale.ROOT)) : defaultValue;
+    }
+}
@@ -0,0 +1,445 @@
+package com.fitness.loadtest;
+
+import org.flywaydb.core.Flyway;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Loads a synthetic social graph with {@code COPY}: users with a power-law follow graph,
+ * workouts with exercises, likes, comments, their activity and the home timelines it fans out
+ * to. Generation is seeded per user and per workout, so a seed always yields the same data.
+ * <p>
+ * Without {@code --jdbc-url} a Testcontainers Postgres is started, migrated with Flyway and
+ * kept running until the process is stopped; point the backend at the URL it prints.
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dexec.args="--users=1000000"
+ * mvn -Ploadtest compile exec:java -Dexec.args="--jdbc-url=jdbc:postgresql://localhost:5432/fitness_db"
+ * </pre>
+ * Training analytics are not backfilled for the generated history.
+ */
+public final class SocialGraphGenerator {
+
+    static final String USERNAME_PREFIX = "load_";
+    static final String PASSWORD = "loadtest";
+
+    private static final int FOLLOWS = 1;
+    private static final int WORKOUTS = 2;
+    private static final int EXERCISES = 3;
+    private static final int LIKES = 4;
+    private static final int COMMENTS = 5;
+
+    // Out-degree ~ Pareto(1.5): most users follow a few accounts, a few follow thousands
+    private static final double FOLLOW_EXPONENT = 1.5;
+    private static final int MAX_FOLLOWS = 5000;
+
+    private static final String[] TITLES = { "Push day", "Pull day", "Leg day", "Full body", "Upper body",
+            "Lower body", "Morning lift", "Evening session", "Deload", "Heavy singles" };
+    private static final String[] COMMENTS_TEXT = { "Nice work!", "Beast mode", "Those numbers are climbing",
+            "How did the last set feel?", "Great session, keep it up", "Solid volume today" };
+
+    private final Connection connection;
+    private final int users;
+    private final double averageFollows;
+    private final double workoutsPerUser;
+    private final double likesPerWorkout;
+    private final double commentsPerWorkout;
+    private final int historyDays;
+    private final int timelineDays;
+    private final long seed;
+    private final long stride;
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private long userBase;
+    private long followBase;
+    private long workoutBase;
+    private long workoutExerciseBase;
+    private long likeBase;
+    private long commentBase;
+    private long activityBase;
+    private long[] exerciseIds;
+
+    SocialGraphGenerator(Connection connection, Options options) {
+        this.connection = connection;
+        this.users = options.integer("users", 1_000_000);
+        this.averageFollows = options.decimal("follows-per-user", 20);
+        this.workoutsPerUser = options.decimal("workouts-per-user", 8);
+        this.likesPerWorkout = options.decimal("likes-per-workout", 3);
+        this.commentsPerWorkout = options.decimal("comments-per-workout", 0.5);
+        this.historyDays = options.integer("history-days", 365);
+        this.timelineDays = options.integer("timeline-days", 14);
+        this.seed = options.number("seed", 42);
+        if (users < 2) {
+            throw new IllegalArgumentException("--users must be at least 2");
+        }
+        this.stride = coprimeStride(users);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        String url = options.string("jdbc-url", "");
+        String username = options.string("jdbc-username", "postgres");
+        String password = options.string("jdbc-password", "1234");
+        PostgreSQLContainer<?> postgres = null;
+        if (url.isBlank()) {
+            postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+                    .withDatabaseName("fitness_db")
+                    .withCommand("postgres", "-c", "max_wal_size=4GB", "-c", "shared_buffers=512MB");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        Flyway.configure().dataSource(url, username, password).load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            new SocialGraphGenerator(connection, options).generate();
+        }
+
+        if (postgres != null) {
+            System.out.printf("%nPostgres is up; start the backend with%n"
+                    + "  --spring.datasource.url=%s --spring.datasource.username=%s --spring.datasource.password=%s%n"
+                    + "Stop this process to remove the container.%n", url, username, password);
+            Thread.currentThread().join();
+        }
+    }
+
+    void generate() throws SQLException, IOException {
+        execute("SET synchronous_commit = off");
+        // Rows reference each other correctly by construction, so skip the per-row foreign key
+        // triggers; this needs a superuser, which a throwaway database normally has
+        try {
+            execute("SET session_replication_role = replica");
+        } catch (SQLException e) {
+            System.out.println("Loading with foreign key checks: " + e.getMessage());
+        }
+        userBase = maxId("users");
+        followBase = maxId("follows");
+        workoutBase = maxId("workouts");
+        workoutExerciseBase = maxId("workout_exercises");
+        likeBase = maxId("likes");
+        commentBase = maxId("comments");
+        activityBase = maxId("activity_feed");
+        exerciseIds = exerciseIds();
+
+        int[] followers = new int[users];
+        int[] following = new int[users];
+        for (int i = 0; i < users; i++) {
+            int[] followees = followees(i);
+            following[i] = followees.length;
+            for (int followee : followees) {
+                followers[followee]++;
+            }
+        }
+
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        copy("users", "id, username, email, password_hash, display_name, followers_count, following_count, "
+                + "status, created_at, updated_at", out -> {
+            for (int i = 0; i < users; i++) {
+                long id = userId(i);
+                Instant joined = now.minus(historyDays + i % 30, ChronoUnit.DAYS);
+                out.value(id).value(USERNAME_PREFIX + id).value(USERNAME_PREFIX + id + "@example.com")
+                        .value(passwordHash).value("Athlete " + id).value(followers[i]).value(following[i])
+                        .value("ACTIVE").value(joined).value(joined).end();
+            }
+        });
+
+        copy("follows", "id, follower_id, followee_id, created_at, updated_at", out -> {
+            long id = followBase;
+            for (int i = 0; i < users; i++) {
+                Instant followedAt = now.minus(i % historyDays, ChronoUnit.DAYS);
+                for (int followee : followees(i)) {
+                    out.value(++id).value(userId(i)).value(userId(followee)).value(followedAt).value(followedAt)
+                            .end();
+                }
+            }
+        });
+
+        copy("workouts", "id, user_id, title, start_time, end_time, duration_seconds, calories_burned, "
+                + "is_private, like_count, comment_count, created_at, updated_at", out -> forEachWorkout(workout -> {
+            Instant end = workout.start.plus(workout.minutes, ChronoUnit.MINUTES);
+            out.value(workout.id).value(userId(workout.user)).value(workout.title).value(workout.start).value(end)
+                    .value(workout.minutes * 60).value(workout.minutes * 7).value(workout.isPrivate)
+                    .value(workout.likes).value(workout.comments).value(end).value(end).end();
+        }));
+
+        copy("workout_exercises", "id, workout_id, exercise_id, sets, reps, weight_kg, order_index",
+                out -> forEachWorkout(workout -> {
+                    SplittableRandom random = random(EXERCISES, workout.id);
+                    int first = random.nextInt(exerciseIds.length);
+                    for (int j = 0; j < workout.exercises; j++) {
+                        int reps = 3 + random.nextInt(10);
+                        double weight = Math.round((20 + random.nextDouble() * 140) * 2) / 2.0;
+                        out.value(workout.firstExerciseId + j)
+                                .value(workout.id)
+                                .value(exerciseIds[(first + j) % exerciseIds.length])
+                                .value(3 + random.nextInt(3)).value(reps).value(weight).value(j).end();
+                    }
+                }));
+
+        copy("likes", "id, user_id, parent_type, parent_id, created_at, updated_at", out -> forEachWorkout(workout -> {
+            SplittableRandom random = random(LIKES, workout.id);
+            Set<Integer> likers = new LinkedHashSet<>();
+            while (likers.size() < workout.likes) {
+                likers.add(random.nextInt(users));
+            }
+            long id = workout.firstLikeId;
+            for (int liker : likers) {
+                Instant likedAt = workout.start.plus(workout.minutes + random.nextInt(600), ChronoUnit.MINUTES);
+                out.value(id++).value(userId(liker)).value("WORKOUT").value(workout.id).value(likedAt)
+                        .value(likedAt).end();
+            }
+        }));
+
+        copy("comments", "id, user_id, parent_type, parent_id, content, created_at, updated_at",
+                out -> forEachWorkout(workout -> {
+                    SplittableRandom random = random(COMMENTS, workout.id);
+                    for (int j = 0; j < workout.comments; j++) {
+                        Instant at = workout.start.plus(workout.minutes + random.nextInt(1440), ChronoUnit.MINUTES);
+                        out.value(workout.firstCommentId + j).value(userId(random.nextInt(users))).value("WORKOUT")
+                                .value(workout.id).value(COMMENTS_TEXT[random.nextInt(COMMENTS_TEXT.length)])
+                                .value(at).value(at).end();
+                    }
+                }));
+
+        copy("activity_feed", "id, origin_user_id, type, payload, visibility, created_at, updated_at",
+                out -> forEachWorkout(workout -> {
+                    Instant end = workout.start.plus(workout.minutes, ChronoUnit.MINUTES);
+                    out.value(activityBase + workout.id - workoutBase).value(userId(workout.user))
+                            .value("WORKOUT_CREATED")
+                            .value("{\"workoutId\": " + workout.id + ", \"title\": \"" + workout.title + "\"}")
+                            .value(workout.isPrivate ? "PRIVATE" : "PUBLIC").value(end).value(end).end();
+                }));
+
+        fanOutTimelines();
+        resetSequences();
+        execute("ANALYZE");
+        System.out.printf("Generated users %s%d..%s%d, password '%s'%n"
+                        + "Drive load with: --first-user-id=%d --last-user-id=%d%n",
+                USERNAME_PREFIX, userId(0), USERNAME_PREFIX, userId(users - 1), PASSWORD, userId(0),
+                userId(users - 1));
+    }
+
+    // Same fan-out as the outbox dispatcher, for the window a feed reader realistically scrolls
+    private void fanOutTimelines() throws SQLException {
+        long started = System.nanoTime();
+        Timestamp since = Timestamp.from(now.minus(timelineDays, ChronoUnit.DAYS));
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO home_timeline (user_id, activity_id, origin_user_id, created_at) "
+                        + "SELECT af.origin_user_id, af.id, af.origin_user_id, af.created_at FROM activity_feed af "
+                        + "WHERE af.id > ? AND af.created_at > ? "
+                        + "UNION ALL "
+                        + "SELECT f.follower_id, af.id, af.origin_user_id, af.created_at FROM activity_feed af "
+                        + "JOIN follows f ON f.followee_id = af.origin_user_id "
+                        + "WHERE af.id > ? AND af.created_at > ? AND af.visibility <> 'PRIVATE' "
+                        + "ON CONFLICT DO NOTHING")) {
+            statement.setLong(1, activityBase);
+            statement.setTimestamp(2, since);
+            statement.setLong(3, activityBase);
+            statement.setTimestamp(4, since);
+            int rows = statement.executeUpdate();
+            System.out.printf("home_timeline: %,d rows in %.1fs%n", rows, (System.nanoTime() - started) / 1e9);
+        }
+    }
+
+    private void resetSequences() throws SQLException {
+        for (String table : List.of("users", "follows", "workouts", "workout_exercises", "likes", "comments",
+                "activity_feed")) {
+            execute("SELECT setval('" + table + "_id_seq', (SELECT MAX(id) FROM " + table + "))");
+        }
+    }
+
+    private int[] followees(int user) {
+        SplittableRandom random = random(FOLLOWS, user);
+        double minimum = averageFollows * (FOLLOW_EXPONENT - 1) / FOLLOW_EXPONENT;
+        int count = (int) Math.min(Math.min(MAX_FOLLOWS, users - 1),
+                minimum * Math.pow(1 - random.nextDouble(), -1 / FOLLOW_EXPONENT));
+        Set<Integer> followees = new LinkedHashSet<>();
+        for (int attempts = 0; followees.size() < count && attempts < count * 4; attempts++) {
+            int followee = popularUser(random);
+            if (followee != user) {
+                followees.add(followee);
+            }
+        }
+        return followees.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // P(rank) ~ 1/rank; ranks are scattered over the id range so popular users aren't all old users
+    private int popularUser(SplittableRandom random) {
+        long rank = (long) Math.exp(random.nextDouble() * Math.log(users));
+        return (int) ((rank - 1) * stride % users);
+    }
+
+    private void forEachWorkout(WorkoutVisitor visitor) throws IOException {
+        long workoutId = workoutBase;
+        long exerciseId = workoutExerciseBase;
+        long likeId = likeBase;
+        long commentId = commentBase;
+        Workout workout = new Workout();
+        for (int i = 0; i < users; i++) {
+            SplittableRandom random = random(WORKOUTS, i);
+            int count = exponential(random, workoutsPerUser);
+            for (int j = 0; j < count; j++) {
+                workout.id = ++workoutId;
+                workout.user = i;
+                workout.title = TITLES[random.nextInt(TITLES.length)];
+                workout.start = now.minus(random.nextInt(historyDays * 24 * 60) + 180, ChronoUnit.MINUTES);
+                workout.minutes = 30 + random.nextInt(90);
+                workout.isPrivate = random.nextInt(20) == 0;
+                workout.exercises = 3 + random.nextInt(4);
+                workout.likes = Math.min(users, exponential(random, likesPerWorkout));
+                workout.comments = exponential(random, commentsPerWorkout);
+                workout.firstExerciseId = exerciseId + 1;
+                workout.firstLikeId = likeId + 1;
+                workout.firstCommentId = commentId + 1;
+                exerciseId += workout.exercises;
+                likeId += workout.likes;
+                commentId += workout.comments;
+                visitor.visit(workout);
+            }
+        }
+    }
+
+    private void copy(String table, String columns, RowSource rows) throws SQLException, IOException {
+        long started = System.nanoTime();
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+        CsvRows out;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, 1 << 16),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            out = new CsvRows(writer);
+            rows.write(out);
+        }
+        System.out.printf("%s: %,d rows in %.1fs%n", table, out.rows, (System.nanoTime() - started) / 1e9);
+    }
+
+    private long maxId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private long[] exerciseIds() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM exercises ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No exercises found; the seed migration should have created them");
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long userId(int user) {
+        return userBase + user + 1;
+    }
+
+    private SplittableRandom random(int stream, long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + index);
+    }
+
+    private static int exponential(SplittableRandom random, double mean) {
+        return (int) (-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    private static long coprimeStride(long n) {
+        long stride = 2_654_435_761L % n;
+        while (gcd(stride, n) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    // Reused for every workout of a pass; visitors must not keep it
+    private static final class Workout {
+        long id;
+        int user;
+        String title;
+        Instant start;
+        int minutes;
+        boolean isPrivate;
+        int exercises;
+        int likes;
+        int comments;
+        long firstExerciseId;
+        long firstLikeId;
+        long firstCommentId;
+    }
+
+    private interface WorkoutVisitor {
+        void visit(Workout workout) throws IOException;
+    }
+
+    private interface RowSource {
+        void write(CsvRows out) throws IOException;
+    }
+
+    private static final class CsvRows {
+
+        private final Writer writer;
+        private boolean first = true;
+        private long rows;
+
+        CsvRows(Writer writer) {
+            this.writer = writer;
+        }
+
+        CsvRows value(Object value) throws IOException {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            if (value instanceof String text) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(String.valueOf(value));
+            }
+            return this;
+        }
+
+        void end() throws IOException {
+            writer.write('\n');
+            first = true;
+            rows++;
+        }
+    }
+}
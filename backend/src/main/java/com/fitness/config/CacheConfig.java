@@ -0,0 +1,122 @@
+package com.fitness.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS = "users";
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+    public static final String WORKOUTS = "workouts";
+    public static final String ROUTINES = "routines";
+    public static final String UNREAD_NOTIFICATIONS = "unreadNotifications";
+
+    private static final String INVALIDATION_CHANNEL = "fitness:cache-invalidation";
+    static final String ALL_KEYS = "*";
+
+    // Lets an instance ignore its own invalidation broadcasts
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${cache.near.max-size:10000}")
+    private long nearMaxSize;
+
+    @Value("${cache.near.ttl:60s}")
+    private Duration nearTtl;
+
+    @Value("${cache.far.enabled:true}")
+    private boolean farEnabled;
+
+    @Value("${cache.far.ttl:10m}")
+    private Duration farTtl;
+
+    @Value("${cache.far.retry-after:30s}")
+    private Duration farRetryAfter;
+
+    @Bean
+    public FarTierGuard farTierGuard() {
+        return new FarTierGuard(farRetryAfter);
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+            StringRedisTemplate redisTemplate, FarTierGuard farTierGuard, MeterRegistry meterRegistry) {
+        Caffeine<Object, Object> nearSpec = Caffeine.newBuilder()
+                .maximumSize(nearMaxSize)
+                .expireAfterWrite(nearTtl);
+
+        RedisCacheManager farCacheManager = farEnabled
+                ? farCacheManager(RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory), farTtl)
+                : null;
+
+        return new TwoLevelCacheManager(List.of(USERS, USERS_BY_USERNAME, WORKOUTS, ROUTINES,
+                UNREAD_NOTIFICATIONS), nearSpec,
+                farCacheManager, farTierGuard, invalidationPublisher(redisTemplate, farTierGuard), meterRegistry);
+    }
+
+    // Values are written as JSON snapshots rather than serialized entities, see CacheSnapshots
+    static RedisCacheManager farCacheManager(RedisCacheWriter cacheWriter, Duration ttl) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(ttl)
+                .disableCachingNullValues()
+                .prefixCacheNameWith("fitness:");
+        RedisCacheManager farCacheManager = RedisCacheManager.builder(cacheWriter)
+                .cacheDefaults(defaults)
+                .withCacheConfiguration(USERS, defaults.serializeValuesWith(pair(CacheSnapshots.users())))
+                .withCacheConfiguration(USERS_BY_USERNAME, defaults.serializeValuesWith(pair(CacheSnapshots.users())))
+                .withCacheConfiguration(WORKOUTS, defaults.serializeValuesWith(pair(CacheSnapshots.workouts())))
+                .withCacheConfiguration(ROUTINES, defaults.serializeValuesWith(pair(CacheSnapshots.routines())))
+                .withCacheConfiguration(UNREAD_NOTIFICATIONS,
+                        defaults.serializeValuesWith(pair(CacheSnapshots.counts())))
+                .disableCreateOnMissingCache()
+                .build();
+        farCacheManager.afterPropertiesSet();
+        return farCacheManager;
+    }
+
+    private static <T> RedisSerializationContext.SerializationPair<T> pair(RedisSerializer<T> serializer) {
+        return RedisSerializationContext.SerializationPair.fromSerializer(serializer);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.far.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationListener cacheInvalidationListener(RedisConnectionFactory redisConnectionFactory,
+            TwoLevelCacheManager cacheManager) {
+        return new CacheInvalidationListener(redisConnectionFactory, cacheManager, INVALIDATION_CHANNEL, instanceId,
+                farRetryAfter.toMillis());
+    }
+
+    // Other instances drop their near copy; a lost message is bounded by the near TTL
+    private BiConsumer<String, String> invalidationPublisher(StringRedisTemplate redisTemplate,
+            FarTierGuard farTierGuard) {
+        return (cacheName, key) -> {
+            if (!farEnabled || !farTierGuard.isAvailable()) {
+                return;
+            }
+            try {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                        instanceId + "|" + cacheName + "|" + (key != null ? key : ALL_KEYS));
+            } catch (RuntimeException e) {
+                farTierGuard.markFailed(e);
+            }
+        };
+    }
+}
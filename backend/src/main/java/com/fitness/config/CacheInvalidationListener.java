@@ -0,0 +1,54 @@
+package com.fitness.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies near-cache invalidations broadcast by other instances. The subscription is
+ * (re)established on a schedule rather than at startup so the application boots and
+ * serves requests while Redis is down.
+ */
+@Slf4j
+public class CacheInvalidationListener implements DisposableBean {
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public CacheInvalidationListener(RedisConnectionFactory redisConnectionFactory,
+            TwoLevelCacheManager cacheManager, String channel, String instanceId, long recoveryInterval) {
+        container.setConnectionFactory(redisConnectionFactory);
+        container.setRecoveryInterval(recoveryInterval);
+        container.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+            if (parts.length == 3 && !parts[0].equals(instanceId)) {
+                cacheManager.evictNear(parts[1], CacheConfig.ALL_KEYS.equals(parts[2]) ? null : parts[2]);
+            }
+        }, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.far.subscribe-interval:30000}")
+    public void subscribe() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            container.start();
+            log.info("Subscribed to cache invalidations");
+        } catch (RuntimeException e) {
+            // Reset so the next attempt starts from scratch
+            container.stop();
+            log.debug("Cache invalidation subscription failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+}
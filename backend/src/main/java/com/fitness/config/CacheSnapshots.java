@@ -0,0 +1,219 @@
+package com.fitness.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fitness.model.BaseEntity;
+import com.fitness.model.Exercise;
+import com.fitness.model.Routine;
+import com.fitness.model.RoutineExercise;
+import com.fitness.model.User;
+import com.fitness.model.Workout;
+import com.fitness.model.WorkoutExercise;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * JSON shapes of the values kept in the far cache. Only fields the API exposes are copied, so
+ * credentials never leave the process, and associations are reduced to ids for the batch loaders.
+ */
+final class CacheSnapshots {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private CacheSnapshots() {
+    }
+
+    static RedisSerializer<User> users() {
+        return serializer(UserSnapshot.class, UserSnapshot::of, UserSnapshot::toEntity);
+    }
+
+    static RedisSerializer<Workout> workouts() {
+        return serializer(WorkoutSnapshot.class, WorkoutSnapshot::of, WorkoutSnapshot::toEntity);
+    }
+
+    static RedisSerializer<Routine> routines() {
+        return serializer(RoutineSnapshot.class, RoutineSnapshot::of, RoutineSnapshot::toEntity);
+    }
+
+    static RedisSerializer<Long> counts() {
+        return new GenericToStringSerializer<>(Long.class);
+    }
+
+    private static <T, S> RedisSerializer<T> serializer(Class<S> type, Function<T, S> toSnapshot,
+            Function<S, T> toEntity) {
+        Jackson2JsonRedisSerializer<S> json = new Jackson2JsonRedisSerializer<>(MAPPER, type);
+        return new RedisSerializer<>() {
+            @Override
+            public byte[] serialize(T value) {
+                return value != null ? json.serialize(toSnapshot.apply(value)) : null;
+            }
+
+            @Override
+            public T deserialize(byte[] bytes) {
+                S snapshot = json.deserialize(bytes);
+                if (snapshot == null) {
+                    return null;
+                }
+                try {
+                    return toEntity.apply(snapshot);
+                } catch (RuntimeException e) {
+                    throw new SerializationException("Could not rebuild " + type.getSimpleName(), e);
+                }
+            }
+        };
+    }
+
+    private static <T extends BaseEntity> T withTimestamps(T entity, OffsetDateTime createdAt,
+            OffsetDateTime updatedAt) {
+        entity.setCreatedAt(createdAt);
+        entity.setUpdatedAt(updatedAt);
+        return entity;
+    }
+
+    record UserSnapshot(Long id, String username, String email, String displayName, String bio, String avatarUrl,
+            Integer followersCount, Integer followingCount, User.UserStatus status, OffsetDateTime createdAt,
+            OffsetDateTime updatedAt) {
+
+        static UserSnapshot of(User user) {
+            return new UserSnapshot(user.getId(), user.getUsername(), user.getEmail(), user.getDisplayName(),
+                    user.getBio(), user.getAvatarUrl(), user.getFollowersCount(), user.getFollowingCount(),
+                    user.getStatus(), user.getCreatedAt(), user.getUpdatedAt());
+        }
+
+        User toEntity() {
+            return withTimestamps(User.builder()
+                    .id(id)
+                    .username(username)
+                    .email(email)
+                    .displayName(displayName)
+                    .bio(bio)
+                    .avatarUrl(avatarUrl)
+                    .followersCount(followersCount)
+                    .followingCount(followingCount)
+                    .status(status)
+                    .build(), createdAt, updatedAt);
+        }
+    }
+
+    record WorkoutSnapshot(Long id, Long userId, String title, String notes, OffsetDateTime startTime,
+            OffsetDateTime endTime, Integer durationSeconds, Integer caloriesBurned, Boolean isPrivate,
+            Integer likeCount, Integer commentCount, String mediaUrls, List<WorkoutExerciseSnapshot> exercises,
+            OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+
+        static WorkoutSnapshot of(Workout workout) {
+            return new WorkoutSnapshot(workout.getId(), workout.getUser().getId(), workout.getTitle(),
+                    workout.getNotes(), workout.getStartTime(), workout.getEndTime(), workout.getDurationSeconds(),
+                    workout.getCaloriesBurned(), workout.getIsPrivate(), workout.getLikeCount(),
+                    workout.getCommentCount(), workout.getMediaUrls(),
+                    workout.getExercises().stream().map(WorkoutExerciseSnapshot::of).toList(),
+                    workout.getCreatedAt(), workout.getUpdatedAt());
+        }
+
+        Workout toEntity() {
+            Workout workout = withTimestamps(Workout.builder()
+                    .id(id)
+                    .user(User.builder().id(userId).build())
+                    .title(title)
+                    .notes(notes)
+                    .startTime(startTime)
+                    .endTime(endTime)
+                    .durationSeconds(durationSeconds)
+                    .caloriesBurned(caloriesBurned)
+                    .isPrivate(isPrivate)
+                    .likeCount(likeCount)
+                    .commentCount(commentCount)
+                    .mediaUrls(mediaUrls)
+                    .build(), createdAt, updatedAt);
+            exercises.forEach(exercise -> workout.getExercises().add(exercise.toEntity(workout)));
+            return workout;
+        }
+    }
+
+    record WorkoutExerciseSnapshot(Long id, Long exerciseId, Integer sets, Integer reps, BigDecimal weightKg,
+            Integer durationSeconds, Integer orderIndex, String notes) {
+
+        static WorkoutExerciseSnapshot of(WorkoutExercise exercise) {
+            return new WorkoutExerciseSnapshot(exercise.getId(), exercise.getExercise().getId(), exercise.getSets(),
+                    exercise.getReps(), exercise.getWeightKg(), exercise.getDurationSeconds(),
+                    exercise.getOrderIndex(), exercise.getNotes());
+        }
+
+        WorkoutExercise toEntity(Workout workout) {
+            return WorkoutExercise.builder()
+                    .id(id)
+                    .workout(workout)
+                    .exercise(Exercise.builder().id(exerciseId).build())
+                    .sets(sets)
+                    .reps(reps)
+                    .weightKg(weightKg)
+                    .durationSeconds(durationSeconds)
+                    .orderIndex(orderIndex)
+                    .notes(notes)
+                    .build();
+        }
+    }
+
+    record RoutineSnapshot(Long id, Long ownerId, String title, String description, Boolean isPublic,
+            Integer likeCount, Integer commentCount, Long copiedFromId, List<RoutineExerciseSnapshot> exercises,
+            OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+
+        static RoutineSnapshot of(Routine routine) {
+            return new RoutineSnapshot(routine.getId(), routine.getOwner().getId(), routine.getTitle(),
+                    routine.getDescription(), routine.getIsPublic(), routine.getLikeCount(),
+                    routine.getCommentCount(), routine.getCopiedFrom() != null ? routine.getCopiedFrom().getId() : null,
+                    routine.getExercises().stream().map(RoutineExerciseSnapshot::of).toList(),
+                    routine.getCreatedAt(), routine.getUpdatedAt());
+        }
+
+        Routine toEntity() {
+            Routine routine = withTimestamps(Routine.builder()
+                    .id(id)
+                    .owner(User.builder().id(ownerId).build())
+                    .title(title)
+                    .description(description)
+                    .isPublic(isPublic)
+                    .likeCount(likeCount)
+                    .commentCount(commentCount)
+                    .copiedFrom(copiedFromId != null ? Routine.builder().id(copiedFromId).build() : null)
+                    .build(), createdAt, updatedAt);
+            exercises.forEach(exercise -> routine.getExercises().add(exercise.toEntity(routine)));
+            return routine;
+        }
+    }
+
+    record RoutineExerciseSnapshot(Long id, Long exerciseId, Integer orderIndex, Integer sets, Integer reps,
+            Integer durationSeconds, Integer restSeconds, String notes) {
+
+        static RoutineExerciseSnapshot of(RoutineExercise exercise) {
+            return new RoutineExerciseSnapshot(exercise.getId(), exercise.getExercise().getId(),
+                    exercise.getOrderIndex(), exercise.getSets(), exercise.getReps(), exercise.getDurationSeconds(),
+                    exercise.getRestSeconds(), exercise.getNotes());
+        }
+
+        RoutineExercise toEntity(Routine routine) {
+            return RoutineExercise.builder()
+                    .id(id)
+                    .routine(routine)
+                    .exercise(Exercise.builder().id(exerciseId).build())
+                    .orderIndex(orderIndex)
+                    .sets(sets)
+                    .reps(reps)
+                    .durationSeconds(durationSeconds)
+                    .restSeconds(restSeconds)
+                    .notes(notes)
+                    .build();
+        }
+    }
+}
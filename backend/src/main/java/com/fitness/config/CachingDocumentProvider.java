@@ -0,0 +1,53 @@
+package com.fitness.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Keeps parsed and validated documents by query text, so repeated operations skip both steps.
+ * Documents that failed to parse or validate are not kept: they are cheap to reject again and
+ * would only let junk queries push out real ones.
+ */
+public class CachingDocumentProvider implements PreparsedDocumentProvider {
+
+    private final Cache<String, PreparsedDocumentEntry> documents;
+
+    public CachingDocumentProvider(long maxSize, MeterRegistry meterRegistry) {
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphql-documents");
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        String query = executionInput.getQuery();
+        PreparsedDocumentEntry entry = documents.getIfPresent(query);
+        if (entry == null) {
+            // A racing duplicate parse is harmless and keeps parsing out of the cache's locks
+            entry = parseAndValidate.apply(executionInput);
+            if (!entry.hasErrors()) {
+                documents.put(query, entry);
+            }
+        }
+        return CompletableFuture.completedFuture(entry);
+    }
+
+    // Still abstract in graphql-java 21, but the engine only calls getDocumentAsync
+    @Override
+    @Deprecated
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        return getDocumentAsync(executionInput, parseAndValidate).join();
+    }
+}
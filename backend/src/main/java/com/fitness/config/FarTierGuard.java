@@ -0,0 +1,33 @@
+package com.fitness.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Shared circuit breaker for the Redis tier: after a failure every cache skips Redis
+ * for a while instead of paying a connection timeout on each request.
+ */
+@Slf4j
+public class FarTierGuard {
+
+    private final Duration retryAfter;
+
+    private volatile long unavailableUntil;
+
+    public FarTierGuard(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    public void markFailed(RuntimeException cause) {
+        if (isAvailable()) {
+            log.warn("Redis cache tier unavailable, using the near cache only for {}: {}", retryAfter,
+                    cause.getMessage());
+        }
+        unavailableUntil = System.currentTimeMillis() + retryAfter.toMillis();
+    }
+}
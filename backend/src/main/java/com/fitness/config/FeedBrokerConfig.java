@@ -0,0 +1,35 @@
+package com.fitness.config;
+
+import com.fitness.service.FeedBroker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Picks how feed events reach subscribers: {@code feed.broker.type=local} (the default) for a
+ * single instance, {@code redis} when several instances serve subscriptions.
+ */
+@Configuration
+public class FeedBrokerConfig {
+
+    private static final String FEED_CHANNEL = "fitness:feed";
+
+    @Bean
+    @ConditionalOnProperty(name = "feed.broker.type", havingValue = "local", matchIfMissing = true)
+    public FeedBroker localFeedBroker() {
+        return new LocalFeedBroker();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "feed.broker.type", havingValue = "redis")
+    public FeedBroker redisFeedBroker(RedisConnectionFactory redisConnectionFactory,
+            StringRedisTemplate redisTemplate,
+            @Value("${feed.broker.recovery-interval:30s}") Duration recoveryInterval) {
+        return new RedisFeedBroker(redisConnectionFactory, redisTemplate, FEED_CHANNEL, recoveryInterval.toMillis());
+    }
+}
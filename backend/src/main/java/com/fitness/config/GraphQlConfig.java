@@ -1,6 +1,9 @@
 package com.fitness.config;
 
 import graphql.scalars.ExtendedScalars;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
@@ -12,6 +15,23 @@ public class GraphQlConfig {
     public RuntimeWiringConfigurer runtimeWiringConfigurer() {
         return wiringBuilder -> wiringBuilder
                 .scalar(ExtendedScalars.DateTime)
+                .scalar(ExtendedScalars.Date)
                 .scalar(ExtendedScalars.Json);
     }
+
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation(MeterRegistry meterRegistry,
+            @Value("${graphql.limits.max-cost:5000}") int maxCost,
+            @Value("${graphql.limits.max-depth:10}") int maxDepth,
+            @Value("${graphql.limits.max-page-size:100}") int maxPageSize,
+            @Value("${graphql.limits.default-list-size:10}") int defaultListSize) {
+        return new QueryCostInstrumentation(maxCost, maxDepth, maxPageSize, defaultListSize, meterRegistry);
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer documentCacheCustomizer(MeterRegistry meterRegistry,
+            @Value("${graphql.document-cache.max-size:1000}") long maxSize) {
+        CachingDocumentProvider documentProvider = new CachingDocumentProvider(maxSize, meterRegistry);
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+    }
 }
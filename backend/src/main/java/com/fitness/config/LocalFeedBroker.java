@@ -0,0 +1,25 @@
+package com.fitness.config;
+
+import com.fitness.service.FeedBroker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers feed events to this node only; enough while one instance serves all subscriptions.
+ */
+public class LocalFeedBroker implements FeedBroker {
+
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Event event) {
+        listeners.forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,169 @@
+package com.fitness.config;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-operation metrics tagged by operation name: a timer per resolved field, and the SQL
+ * statements and rows each operation caused (counted by {@link SqlMetricsConfig}). A statement
+ * that runs many times within one operation is reported as a likely N+1.
+ * <p>
+ * Operation names come from clients, so only the first {@code max-operation-names} distinct
+ * ones become tags; later ones are reported as "other".
+ */
+@Slf4j
+@Component
+public class OperationMetricsInstrumentation implements Instrumentation {
+
+    private static final ThreadLocal<OperationStats> CURRENT = new ThreadLocal<>();
+    private static final String ANONYMOUS = "anonymous";
+    private static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+    private final int maxOperationNames;
+    private final Set<String> operationNames = ConcurrentHashMap.newKeySet();
+
+    public OperationMetricsInstrumentation(MeterRegistry meterRegistry,
+            @Value("${graphql.metrics.n-plus-one-threshold:10}") int nPlusOneThreshold,
+            @Value("${graphql.metrics.max-operation-names:200}") int maxOperationNames) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.maxOperationNames = maxOperationNames;
+    }
+
+    /**
+     * Statistics of the operation running on this thread, or null outside GraphQL.
+     */
+    static OperationStats current() {
+        OperationStats stats = CURRENT.get();
+        return stats != null && !stats.finished ? stats : null;
+    }
+
+    static final class OperationStats implements InstrumentationState {
+
+        private final AtomicInteger statements = new AtomicInteger();
+        private final AtomicLong rows = new AtomicLong();
+        private final Map<String, AtomicInteger> executions = new ConcurrentHashMap<>();
+        private volatile String operation = ANONYMOUS;
+        private volatile boolean finished;
+
+        void statementExecuted(String sql) {
+            statements.incrementAndGet();
+            executions.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        void rowsRead(long count) {
+            rows.addAndGet(count);
+        }
+    }
+
+    @Override
+    public CompletableFuture<InstrumentationState> createStateAsync(InstrumentationCreateStateParameters parameters) {
+        return CompletableFuture.completedFuture(new OperationStats());
+    }
+
+    // Binds the stats to the executing thread; field fetches re-bind them wherever they run
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        OperationStats stats = (OperationStats) state;
+        String name = parameters.getExecutionContext().getOperationDefinition().getName();
+        stats.operation = operationTag(name);
+        CURRENT.set(stats);
+        return SimpleInstrumentationContext.whenCompleted((result, failure) -> finish(stats));
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+            InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        if (parameters.isTrivialDataFetcher() || !(state instanceof OperationStats stats)) {
+            return dataFetcher;
+        }
+        String field = parameters.getExecutionStepInfo().getObjectType().getName() + "."
+                + parameters.getField().getName();
+        return environment -> {
+            OperationStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            Timer timer = Timer.builder("graphql.field")
+                    .tag("operation", stats.operation)
+                    .tag("field", field)
+                    .register(meterRegistry);
+            long start = System.nanoTime();
+            Object value;
+            try {
+                value = dataFetcher.get(environment);
+            } catch (Exception e) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            } finally {
+                CURRENT.set(previous);
+            }
+            if (value instanceof CompletionStage<?> stage) {
+                stage.whenComplete((ignored, failure) ->
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            } else {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return value;
+        };
+    }
+
+    private void finish(OperationStats stats) {
+        stats.finished = true;
+        if (CURRENT.get() == stats) {
+            CURRENT.remove();
+        }
+        DistributionSummary.builder("graphql.operation.sql.statements")
+                .tag("operation", stats.operation)
+                .register(meterRegistry)
+                .record(stats.statements.get());
+        DistributionSummary.builder("graphql.operation.sql.rows")
+                .tag("operation", stats.operation)
+                .register(meterRegistry)
+                .record(stats.rows.get());
+        stats.executions.forEach((sql, count) -> {
+            if (count.get() >= nPlusOneThreshold) {
+                meterRegistry.counter("graphql.operation.n_plus_one", "operation", stats.operation).increment();
+                log.warn("Possible N+1 in operation {}: statement ran {} times: {}", stats.operation, count.get(),
+                        sql);
+            }
+        });
+    }
+
+    private String operationTag(String name) {
+        if (name == null || name.isBlank()) {
+            return ANONYMOUS;
+        }
+        if (operationNames.contains(name)) {
+            return name;
+        }
+        if (operationNames.size() < maxOperationNames) {
+            operationNames.add(name);
+            return name;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,176 @@
+package com.fitness.config;
+
+import com.fitness.model.User;
+import graphql.ErrorClassification;
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Charges each GraphQL operation against its client's bucket: the signed-in user, or the
+ * client IP for anonymous calls. An operation costs the sum of its top-level fields, so one
+ * request batching many logins pays for each of them. An operation costing more than the
+ * whole burst is turned away outright, as is one asking for more than
+ * {@code rate-limit.operation.max-password-checks} logins and signups.
+ * <p>
+ * Runs once the document is parsed and validated, before any data fetcher. As an interceptor
+ * it records who the client is while the HTTP or WebSocket request is still at hand.
+ */
+@Component
+public class OperationRateLimitInstrumentation implements Instrumentation, WebGraphQlInterceptor {
+
+    private static final String CLIENT_KEY = OperationRateLimitInstrumentation.class.getName() + ".client";
+    private static final int DEFAULT_COST = 1;
+
+    // BCrypt on every call, or a scan of the exercise catalogue
+    private static final Map<String, Integer> FIELD_COSTS = Map.of(
+            "login", 20,
+            "signup", 20,
+            "exercises", 5,
+            "importWorkouts", 10,
+            "createWorkout", 2,
+            "exerciseProgress", 2);
+
+    private static final Set<String> PASSWORD_CHECKS = Set.of("login", "signup");
+
+    private final RateLimiter rateLimiter;
+    private final RateLimiter.Limit limit;
+    private final boolean enabled;
+    private final int maxPasswordChecks;
+
+    public OperationRateLimitInstrumentation(RateLimiter rateLimiter,
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.operation.rate-per-second:10}") double ratePerSecond,
+            @Value("${rate-limit.operation.burst:60}") int burst,
+            @Value("${rate-limit.operation.max-password-checks:1}") int maxPasswordChecks) {
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.limit = new RateLimiter.Limit(ratePerSecond, burst);
+        this.maxPasswordChecks = maxPasswordChecks;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        String client = enabled ? clientKey(request) : null;
+        // No address without the IP filter or a WebSocket session; such requests are not charged
+        if (client != null) {
+            request.configureExecutionInput((input, builder) ->
+                    builder.graphQLContext(context -> context.put(CLIENT_KEY, client)).build());
+        }
+        return chain.next(request);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        if (!enabled) {
+            return null;
+        }
+        Tally tally = new Tally();
+        tally(executionContext.getOperationDefinition().getSelectionSet(), executionContext.getFragmentsByName(),
+                tally);
+        if (tally.passwordChecks > maxPasswordChecks) {
+            throw tooExpensive("At most " + maxPasswordChecks + " login or signup fields are allowed per operation");
+        }
+        String client = executionContext.getGraphQLContext().get(CLIENT_KEY);
+        if (client == null) {
+            return null;
+        }
+        // Would never fit the bucket however long the client waited
+        if (tally.cost > limit.burst()) {
+            throw tooExpensive("Operation cost " + tally.cost + " exceeds the rate limit burst of " + limit.burst());
+        }
+        long waitMillis = rateLimiter.tryAcquire("operation", client, tally.cost, limit);
+        if (waitMillis > 0) {
+            long retryAfter = RateLimitFilter.retryAfterSeconds(waitMillis);
+            throw new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                    .message("Rate limit exceeded, retry in " + retryAfter + "s")
+                    .errorType(ErrorClassification.errorClassification("TOO_MANY_REQUESTS"))
+                    .extensions(Map.of("retryAfterSeconds", retryAfter))
+                    .build()));
+        }
+        return null;
+    }
+
+    private static AbortExecutionException tooExpensive(String message) {
+        return new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                .message(message)
+                .errorType(ErrorType.BAD_REQUEST)
+                .build()));
+    }
+
+    private static final class Tally {
+
+        int cost;
+        int passwordChecks;
+    }
+
+    private static void tally(SelectionSet selectionSet, Map<String, FragmentDefinition> fragments, Tally tally) {
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field field) {
+                // Introspection is free
+                if (!field.getName().startsWith("__")) {
+                    tally.cost += FIELD_COSTS.getOrDefault(field.getName(), DEFAULT_COST);
+                }
+                if (PASSWORD_CHECKS.contains(field.getName())) {
+                    tally.passwordChecks++;
+                }
+            } else if (selection instanceof InlineFragment fragment) {
+                tally(fragment.getSelectionSet(), fragments, tally);
+            } else if (selection instanceof FragmentSpread spread && fragments.containsKey(spread.getName())) {
+                tally(fragments.get(spread.getName()).getSelectionSet(), fragments, tally);
+            }
+        }
+    }
+
+    private static String clientKey(WebGraphQlRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return "user:" + user.getId();
+        }
+        Object address = request.getAttributes().get(RateLimitFilter.CLIENT_ADDRESS_ATTRIBUTE);
+        if (address != null) {
+            return "ip:" + address;
+        }
+        // Socket operations carry neither: use who signed in on connection_init, else the peer
+        if (request instanceof WebSocketGraphQlRequest webSocketRequest) {
+            WebSocketSessionInfo session = webSocketRequest.getSessionInfo();
+            if (session.getAttributes().get(WebSocketAuthInterceptor.USER_KEY) instanceof User user) {
+                return "user:" + user.getId();
+            }
+            InetSocketAddress remoteAddress = session.getRemoteAddress();
+            if (remoteAddress != null && remoteAddress.getAddress() != null) {
+                return "ip:" + remoteAddress.getAddress().getHostAddress();
+            }
+        }
+        return null;
+    }
+}
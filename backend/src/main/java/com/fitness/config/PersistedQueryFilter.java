@@ -0,0 +1,280 @@
+package com.fitness.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Apollo's Automatic Persisted Queries protocol for {@code POST /graphql}. A client sends the
+ * SHA-256 of its query in {@code extensions.persistedQuery.sha256Hash}, and the query text only
+ * after the server answered {@code PersistedQueryNotFound}. Known hashes are expanded into the
+ * request body before Spring GraphQL reads it.
+ * <p>
+ * Queries from the optional Apollo persisted query manifest are always known. With
+ * {@code graphql.persisted-queries.allowlist-only} they are the only operations that run, over
+ * HTTP and over the WebSocket endpoint alike. Subscribe messages on the socket never pass this
+ * filter and always carry the query text, so as an interceptor it checks that text against the
+ * manifest.
+ */
+@Slf4j
+@Component
+public class PersistedQueryFilter extends OncePerRequestFilter implements WebGraphQlInterceptor {
+
+    private static final String NOT_FOUND = "PersistedQueryNotFound";
+
+    private final ObjectMapper objectMapper;
+    private final String graphQlPath;
+    private final boolean allowlistOnly;
+    private final Map<String, String> manifest;
+    private final Cache<String, String> registered;
+    private final long maxBodySize;
+
+    public PersistedQueryFilter(ObjectMapper objectMapper, ResourceLoader resourceLoader,
+            MeterRegistry meterRegistry, @Value("${spring.graphql.path:/graphql}") String graphQlPath,
+            @Value("${graphql.persisted-queries.allowlist-only:false}") boolean allowlistOnly,
+            @Value("${graphql.persisted-queries.manifest:}") String manifestLocation,
+            @Value("${graphql.persisted-queries.max-size:10000}") long maxSize,
+            @Value("${graphql.persisted-queries.max-body-size:1MB}") DataSize maxBodySize) throws IOException {
+        this.objectMapper = objectMapper;
+        this.graphQlPath = graphQlPath;
+        this.allowlistOnly = allowlistOnly;
+        this.maxBodySize = maxBodySize.toBytes();
+        this.manifest = manifestLocation.isBlank()
+                ? Map.of() : loadManifest(resourceLoader.getResource(manifestLocation));
+        this.registered = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, registered, "persisted-queries");
+        if (allowlistOnly && manifest.isEmpty()) {
+            log.warn("Persisted query allowlist is on but no manifest is loaded; every operation will be rejected");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !graphQlPath.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        // A missing or wrong Content-Length is caught by reading one byte past the limit
+        byte[] body = request.getContentLengthLong() > maxBodySize
+                ? null : request.getInputStream().readNBytes((int) maxBodySize + 1);
+        if (body == null || body.length > maxBodySize) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body exceeds " + maxBodySize + " bytes",
+                    "PAYLOAD_TOO_LARGE");
+            return;
+        }
+        JsonNode json = parse(body);
+        if (json == null) {
+            // Malformed bodies are Spring GraphQL's to reject
+            filterChain.doFilter(new BodyRequest(request, body), response);
+            return;
+        }
+
+        String hash = json.path("extensions").path("persistedQuery").path("sha256Hash").asText(null);
+        String query = json.path("query").asText(null);
+        if (hash == null) {
+            if (allowlistOnly) {
+                // Not PersistedQueryNotSupported: Apollo clients would switch to sending full queries
+                reject(response, HttpStatus.BAD_REQUEST, "Only persisted queries are allowed",
+                        "PERSISTED_QUERY_REQUIRED");
+                return;
+            }
+            filterChain.doFilter(new BodyRequest(request, body), response);
+            return;
+        }
+
+        hash = hash.toLowerCase(Locale.ROOT);
+        if (query == null) {
+            query = manifest.get(hash);
+            if (query == null && !allowlistOnly) {
+                query = registered.getIfPresent(hash);
+            }
+            if (query == null) {
+                // Apollo clients answer this by resending the hash together with the query text
+                reject(response, HttpStatus.OK, NOT_FOUND, "PERSISTED_QUERY_NOT_FOUND");
+                return;
+            }
+            ((ObjectNode) json).put("query", query);
+            body = objectMapper.writeValueAsBytes(json);
+        } else if (!hash.equals(sha256(query))) {
+            reject(response, HttpStatus.BAD_REQUEST, "provided sha does not match query", "INVALID_SHA");
+            return;
+        } else if (!manifest.containsKey(hash)) {
+            if (allowlistOnly) {
+                reject(response, HttpStatus.BAD_REQUEST, NOT_FOUND, "PERSISTED_QUERY_NOT_FOUND");
+                return;
+            }
+            registered.put(hash, query);
+        }
+        filterChain.doFilter(new BodyRequest(request, body), response);
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (!allowlistOnly || !(request instanceof WebSocketGraphQlRequest)
+                || manifest.containsKey(sha256(request.getDocument()))) {
+            return chain.next(request);
+        }
+        ExecutionResult rejected = ExecutionResult.newExecutionResult()
+                .addError(GraphqlErrorBuilder.newError()
+                        .message("Only persisted queries are allowed")
+                        .errorType(ErrorType.BAD_REQUEST)
+                        .extensions(Map.of("code", "PERSISTED_QUERY_REQUIRED"))
+                        .build())
+                .build();
+        return Mono.just(new WebGraphQlResponse(
+                new DefaultExecutionGraphQlResponse(request.toExecutionInput(), rejected)));
+    }
+
+    private JsonNode parse(byte[] body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            return json instanceof ObjectNode ? json : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message, String code)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                Map.of("errors", List.of(Map.of("message", message, "extensions", Map.of("code", code)))));
+    }
+
+    // Manifest format written by Apollo's generate-persisted-query-manifest
+    private Map<String, String> loadManifest(Resource resource) throws IOException {
+        Map<String, String> queries = new HashMap<>();
+        try (InputStream in = resource.getInputStream()) {
+            for (JsonNode operation : objectMapper.readTree(in).path("operations")) {
+                String body = operation.path("body").asText();
+                String id = operation.path("id").asText();
+                if (!id.equalsIgnoreCase(sha256(body))) {
+                    throw new IllegalStateException("Persisted query " + operation.path("name").asText()
+                            + " does not match its id " + id);
+                }
+                queries.put(id.toLowerCase(Locale.ROOT), body);
+            }
+        }
+        log.info("Loaded {} persisted queries from {}", queries.size(), resource);
+        return Map.copyOf(queries);
+    }
+
+    private static String sha256(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Replays the body that was already read, or its expanded form
+    private static final class BodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+            };
+        }
+    }
+}
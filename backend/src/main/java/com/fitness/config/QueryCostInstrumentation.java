@@ -0,0 +1,186 @@
+package com.fitness.config;
+
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Argument;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.Value;
+import graphql.language.VariableReference;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.graphql.execution.ErrorType;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rejects operations whose static cost or depth is over budget before any field is fetched.
+ * <p>
+ * Every object a query reaches costs 1, multiplied by the sizes of the lists above it;
+ * scalars are free. A list's size is the page size argument of the field that returns it
+ * ({@code size}, {@code first} or {@code limit}, clamped like the resolvers clamp it), or a
+ * default for lists without one. Paged types such as {@code WorkoutPage} take the page size
+ * from the field that returned the page.
+ */
+public class QueryCostInstrumentation implements Instrumentation {
+
+    private static final Set<String> PAGE_SIZE_ARGUMENTS = Set.of("size", "first", "limit");
+
+    private final int maxCost;
+    private final int maxDepth;
+    private final int maxPageSize;
+    private final int defaultListSize;
+    private final MeterRegistry meterRegistry;
+
+    public QueryCostInstrumentation(int maxCost, int maxDepth, int maxPageSize, int defaultListSize,
+            MeterRegistry meterRegistry) {
+        this.maxCost = maxCost;
+        this.maxDepth = maxDepth;
+        this.maxPageSize = maxPageSize;
+        this.defaultListSize = defaultListSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        Walk walk = new Walk(context.getGraphQLSchema(), context.getFragmentsByName(),
+                context.getCoercedVariables().toMap());
+        GraphQLObjectType rootType = switch (context.getOperationDefinition().getOperation()) {
+            case MUTATION -> context.getGraphQLSchema().getMutationType();
+            case SUBSCRIPTION -> context.getGraphQLSchema().getSubscriptionType();
+            default -> context.getGraphQLSchema().getQueryType();
+        };
+        long cost = walk.cost(context.getOperationDefinition().getSelectionSet(), rootType, 1, 0, 1);
+
+        String operation = context.getOperationDefinition().getOperation().name().toLowerCase(Locale.ROOT);
+        boolean accepted = cost <= maxCost && walk.depth <= maxDepth;
+        DistributionSummary.builder("graphql.operation.cost")
+                .tag("operation", operation)
+                .tag("outcome", accepted ? "accepted" : "rejected")
+                .register(meterRegistry)
+                .record(cost);
+        if (!accepted) {
+            String message = walk.depth > maxDepth
+                    ? "Query depth " + walk.depth + " exceeds the limit of " + maxDepth
+                    : "Query cost " + cost + " exceeds the budget of " + maxCost;
+            throw new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                    .message(message)
+                    .errorType(ErrorType.BAD_REQUEST)
+                    .extensions(Map.of("cost", cost, "maxCost", maxCost, "depth", walk.depth, "maxDepth", maxDepth))
+                    .build()));
+        }
+        return null;
+    }
+
+    private final class Walk {
+
+        private final GraphQLSchema schema;
+        private final Map<String, FragmentDefinition> fragments;
+        private final Map<String, Object> variables;
+        private int depth;
+
+        Walk(GraphQLSchema schema, Map<String, FragmentDefinition> fragments, Map<String, Object> variables) {
+            this.schema = schema;
+            this.fragments = fragments;
+            this.variables = variables;
+        }
+
+        /**
+         * @param multiplier how many times this selection set is resolved
+         * @param pageSize   size handed down by a paged field to the first list below it, or 1
+         */
+        long cost(SelectionSet selectionSet, GraphQLType parentType, long multiplier, int level, int pageSize) {
+            long cost = 0;
+            for (Selection<?> selection : selectionSet.getSelections()) {
+                if (selection instanceof Field field) {
+                    cost += fieldCost(field, parentType, multiplier, level, pageSize);
+                } else if (selection instanceof InlineFragment fragment) {
+                    GraphQLType type = fragment.getTypeCondition() != null
+                            ? schema.getType(fragment.getTypeCondition().getName()) : parentType;
+                    cost += cost(fragment.getSelectionSet(), type, multiplier, level, pageSize);
+                } else if (selection instanceof FragmentSpread spread && fragments.containsKey(spread.getName())) {
+                    FragmentDefinition fragment = fragments.get(spread.getName());
+                    cost += cost(fragment.getSelectionSet(), schema.getType(fragment.getTypeCondition().getName()),
+                            multiplier, level, pageSize);
+                }
+            }
+            return cost;
+        }
+
+        private long fieldCost(Field field, GraphQLType parentType, long multiplier, int level, int pageSize) {
+            // Introspection is answered from the schema in memory
+            if (field.getName().startsWith("__") || !(parentType instanceof GraphQLFieldsContainer container)) {
+                return 0;
+            }
+            GraphQLFieldDefinition definition = container.getFieldDefinition(field.getName());
+            if (definition == null || field.getSelectionSet() == null) {
+                return 0;
+            }
+            depth = Math.max(depth, level + 1);
+
+            Integer requested = pageSizeArgument(field);
+            int handedDown = requested != null ? requested : pageSize;
+            GraphQLOutputType type = definition.getType();
+            long count = multiplier;
+            if (isList(type)) {
+                count *= handedDown > 1 ? handedDown : defaultListSize;
+                handedDown = 1;
+            }
+            // Overflow-safe: anything past the budget is rejected anyway
+            count = Math.min(count, (long) maxCost + 1);
+            return count + cost(field.getSelectionSet(), GraphQLTypeUtil.unwrapAll(type), count, level + 1,
+                    handedDown);
+        }
+
+        private Integer pageSizeArgument(Field field) {
+            for (Argument argument : field.getArguments()) {
+                if (PAGE_SIZE_ARGUMENTS.contains(argument.getName())) {
+                    Integer size = intValue(argument.getValue());
+                    if (size != null && size > 0) {
+                        return Math.min(size, maxPageSize);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Integer intValue(Value<?> value) {
+            if (value instanceof IntValue intValue) {
+                return intValue.getValue().intValue();
+            }
+            if (value instanceof VariableReference reference
+                    && variables.get(reference.getName()) instanceof Number number) {
+                return number.intValue();
+            }
+            return null;
+        }
+    }
+
+    private static boolean isList(GraphQLType type) {
+        return GraphQLTypeUtil.unwrapNonNull(type) instanceof GraphQLList;
+    }
+}
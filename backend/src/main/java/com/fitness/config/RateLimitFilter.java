@@ -0,0 +1,67 @@
+package com.fitness.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Caps requests per client IP before any authentication or GraphQL work is done. Costlier
+ * GraphQL operations are charged again per client by {@link OperationRateLimitInstrumentation}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String CLIENT_ADDRESS_ATTRIBUTE = RateLimitFilter.class.getName() + ".clientAddress";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimiter.Limit limit;
+    private final boolean enabled;
+
+    public RateLimitFilter(RateLimiter rateLimiter, @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.ip.rate-per-second:20}") double ratePerSecond,
+            @Value("${rate-limit.ip.burst:40}") int burst) {
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.limit = new RateLimiter.Limit(ratePerSecond, burst);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String clientAddress = request.getRemoteAddr();
+        request.setAttribute(CLIENT_ADDRESS_ATTRIBUTE, clientAddress);
+        long waitMillis = rateLimiter.tryAcquire("ip", clientAddress, 1, limit);
+        if (waitMillis > 0) {
+            reject(response, waitMillis);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds(waitMillis)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests\"}");
+    }
+
+    static long retryAfterSeconds(long waitMillis) {
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+}
@@ -0,0 +1,127 @@
+package com.fitness.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiting in its GCRA form: each key keeps only the time at which its
+ * bucket will be full again, so a check is one compare-and-set. A request of cost c is
+ * allowed when c more tokens still fit into a bucket of {@code burst} tokens refilled at
+ * {@code ratePerSecond}.
+ * <p>
+ * Keys live in a Caffeine map, which stripes its locking, and are dropped once idle. With
+ * {@code rate-limit.store=redis} buckets are shared by all instances; while Redis is
+ * unreachable each instance falls back to its own buckets.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    // Same algorithm on the Redis clock; returns 0 when allowed, else milliseconds to wait
+    private static final RedisScript<Long> GCRA_SCRIPT = RedisScript.of("""
+            local now = redis.call('TIME')
+            local now_us = tonumber(now[1]) * 1000000 + tonumber(now[2])
+            local interval = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2]) * interval
+            local tat = math.max(tonumber(redis.call('GET', KEYS[1]) or 0), now_us)
+            local new_tat = tat + tonumber(ARGV[3]) * interval
+            local allow_at = new_tat - burst
+            if now_us < allow_at then
+                return math.ceil((allow_at - now_us) / 1000)
+            end
+            redis.call('SET', KEYS[1], new_tat, 'PX', math.ceil((new_tat - now_us) / 1000) + 1)
+            return 0
+            """, Long.class);
+
+    private final Cache<String, AtomicLong> buckets;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean shared;
+    private final Duration redisRetryAfter;
+    private final MeterRegistry meterRegistry;
+
+    private volatile long redisUnavailableUntil;
+
+    public RateLimiter(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+            @Value("${rate-limit.store:local}") String store,
+            @Value("${rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${rate-limit.idle-timeout:10m}") Duration idleTimeout,
+            @Value("${rate-limit.redis-retry-after:30s}") Duration redisRetryAfter) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.shared = "redis".equalsIgnoreCase(store);
+        this.redisRetryAfter = redisRetryAfter;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    public record Limit(double ratePerSecond, int burst) {
+
+        long intervalMicros() {
+            return Math.max(1, Math.round(TimeUnit.SECONDS.toMicros(1) / ratePerSecond));
+        }
+    }
+
+    /**
+     * @param scope names the limit in metrics, e.g. "ip" or "operation"
+     * @return 0 when allowed, otherwise how many milliseconds until the request would be; a cost
+     *         above the burst never fits, so callers should turn such requests away beforehand
+     */
+    public long tryAcquire(String scope, String key, int cost, Limit limit) {
+        // Not clamped to the burst: the bucket is left untouched and the request rejected
+        int charged = Math.max(cost, 1);
+        String bucketKey = scope + ":" + key;
+        long waitMillis = shared && System.currentTimeMillis() >= redisUnavailableUntil
+                ? acquireShared(bucketKey, charged, limit)
+                : acquireLocal(bucketKey, charged, limit);
+        if (waitMillis > 0) {
+            meterRegistry.counter("rate_limit.rejected", "scope", scope).increment();
+        }
+        return waitMillis;
+    }
+
+    private long acquireLocal(String bucketKey, int cost, Limit limit) {
+        AtomicLong bucket = buckets.get(bucketKey, key -> new AtomicLong());
+        long interval = limit.intervalMicros();
+        long burst = limit.burst() * interval;
+        while (true) {
+            long now = TimeUnit.NANOSECONDS.toMicros(System.nanoTime());
+            long stored = bucket.get();
+            long newTat = Math.max(stored, now) + cost * interval;
+            long allowAt = newTat - burst;
+            if (now < allowAt) {
+                return Math.max(1, TimeUnit.MICROSECONDS.toMillis(allowAt - now));
+            }
+            if (bucket.compareAndSet(stored, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    private long acquireShared(String bucketKey, int cost, Limit limit) {
+        try {
+            Long waitMillis = redisTemplate.execute(GCRA_SCRIPT, List.of("fitness:rate:" + bucketKey),
+                    Long.toString(limit.intervalMicros()), Integer.toString(limit.burst()), Integer.toString(cost));
+            return waitMillis != null ? waitMillis : 0;
+        } catch (RuntimeException e) {
+            if (System.currentTimeMillis() >= redisUnavailableUntil) {
+                log.warn("Redis unavailable for rate limiting, using local buckets for {}: {}", redisRetryAfter,
+                        e.getMessage());
+            }
+            redisUnavailableUntil = System.currentTimeMillis() + redisRetryAfter.toMillis();
+            return acquireLocal(bucketKey, cost, limit);
+        }
+    }
+}
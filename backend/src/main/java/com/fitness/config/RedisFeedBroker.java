@@ -0,0 +1,112 @@
+package com.fitness.config;
+
+import com.fitness.service.FeedBroker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Relays feed events between instances over Redis pub/sub. Events are applied locally first,
+ * so an instance keeps serving its own subscribers while Redis is down; like the cache
+ * invalidation listener, the subscription is (re)established on a schedule.
+ */
+@Slf4j
+public class RedisFeedBroker implements FeedBroker, DisposableBean {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    // Lets an instance ignore its own broadcasts
+    private final String instanceId = UUID.randomUUID().toString();
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public RedisFeedBroker(RedisConnectionFactory redisConnectionFactory, StringRedisTemplate redisTemplate,
+            String channel, long recoveryInterval) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        container.setConnectionFactory(redisConnectionFactory);
+        container.setRecoveryInterval(recoveryInterval);
+        container.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+            if (parts.length == 2 && !parts[0].equals(instanceId)) {
+                Event event = decode(parts[1]);
+                if (event != null) {
+                    listeners.forEach(listener -> listener.accept(event));
+                }
+            }
+        }, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+    }
+
+    @Override
+    public void publish(Event event) {
+        listeners.forEach(listener -> listener.accept(event));
+        try {
+            redisTemplate.convertAndSend(channel, instanceId + "|" + encode(event));
+        } catch (RuntimeException e) {
+            log.debug("Could not relay feed event: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${feed.broker.subscribe-interval:30000}")
+    public void subscribe() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            container.start();
+            log.info("Subscribed to feed events");
+        } catch (RuntimeException e) {
+            // Reset so the next attempt starts from scratch
+            container.stop();
+            log.debug("Feed event subscription failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+
+    // A|<activity id>,<activity id>... or F|<follower id>|<followee id>|<following>
+    private static String encode(Event event) {
+        if (event instanceof ActivitiesCreated created) {
+            return "A|" + created.activityIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+        FollowChanged change = (FollowChanged) event;
+        return "F|" + change.followerId() + "|" + change.followeeId() + "|" + change.following();
+    }
+
+    private static Event decode(String message) {
+        String[] parts = message.split("\\|");
+        try {
+            if (parts.length == 2 && parts[0].equals("A")) {
+                return new ActivitiesCreated(Arrays.stream(parts[1].split(",")).map(Long::valueOf).toList());
+            }
+            if (parts.length == 4 && parts[0].equals("F")) {
+                return new FollowChanged(Long.valueOf(parts[1]), Long.valueOf(parts[2]),
+                        Boolean.parseBoolean(parts[3]));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed feed event {}", message);
+        }
+        return null;
+    }
+}
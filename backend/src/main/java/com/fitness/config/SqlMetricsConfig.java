@@ -0,0 +1,79 @@
+package com.fitness.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Wraps the pool in a datasource-proxy so every statement, from Hibernate and JdbcTemplate
+ * alike, is counted against the GraphQL operation that issued it. Rows are counted as result
+ * sets are read. Statements outside an operation (batch jobs, the REST endpoints) are ignored.
+ */
+@Configuration
+@ConditionalOnProperty(name = "graphql.metrics.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlMetricsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new StatementListener())
+                        .methodListener(new RowListener())
+                        .proxyResultSet()
+                        .build();
+            }
+        };
+    }
+
+    private static final class StatementListener implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            OperationMetricsInstrumentation.OperationStats stats = OperationMetricsInstrumentation.current();
+            if (stats != null) {
+                for (QueryInfo query : queryInfoList) {
+                    stats.statementExecuted(query.getQuery());
+                }
+            }
+        }
+    }
+
+    private static final class RowListener implements MethodExecutionListener {
+
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (Boolean.TRUE.equals(executionContext.getResult())
+                    && executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())) {
+                OperationMetricsInstrumentation.OperationStats stats = OperationMetricsInstrumentation.current();
+                if (stats != null) {
+                    stats.rowsRead(1);
+                }
+            }
+        }
+    }
+}
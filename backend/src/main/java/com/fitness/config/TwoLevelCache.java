@@ -0,0 +1,277 @@
+package com.fitness.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * In-process near cache (Caffeine) in front of a shared far cache (Redis).
+ * Concurrent misses for one key within an instance share a single load. Far tier
+ * failures degrade to near-only caching instead of failing the request.
+ * <p>
+ * Evictions bump a generation per key stripe. A read that overlapped an eviction of its key may
+ * hold the value being replaced, so it is returned to the caller but not left in either tier.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final String name;
+    private final AsyncCache<String, Object> near;
+    private final Cache far;
+    private final FarTierGuard guard;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final Counter nearHits;
+    private final Counter farHits;
+    private final Counter misses;
+    private final Counter farErrors;
+    private final Timer farGetLatency;
+    private final Timer farPutLatency;
+    private final Timer farEvictLatency;
+    private final Timer loadLatency;
+
+    public TwoLevelCache(String name, AsyncCache<String, Object> near, Cache far, FarTierGuard guard,
+            BiConsumer<String, String> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.near = near;
+        this.far = far;
+        this.guard = guard;
+        this.invalidationPublisher = invalidationPublisher;
+        this.nearHits = requests(meterRegistry, "near.hit");
+        this.farHits = requests(meterRegistry, "far.hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.farErrors = Counter.builder("cache.far.errors").tag("cache", name).register(meterRegistry);
+        this.farGetLatency = farLatency(meterRegistry, "get");
+        this.farPutLatency = farLatency(meterRegistry, "put");
+        this.farEvictLatency = farLatency(meterRegistry, "evict");
+        this.loadLatency = Timer.builder("cache.load").tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, TwoLevelCache::hitRatio).tag("cache", name).register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return near;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String nearKey = String.valueOf(key);
+        CompletableFuture<Object> pending = near.getIfPresent(nearKey);
+        Object cached = pending != null ? join(pending) : null;
+        if (cached != null) {
+            nearHits.increment();
+            return new SimpleValueWrapper(cached);
+        }
+        long generation = generation(nearKey);
+        ValueWrapper remote = farGet(key);
+        if (remote != null) {
+            farHits.increment();
+            CompletableFuture<Object> copied = CompletableFuture.completedFuture(remote.get());
+            near.put(nearKey, copied);
+            if (generation(nearKey) != generation) {
+                near.asMap().remove(nearKey, copied);
+            }
+            return remote;
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        return wrapper != null ? (T) wrapper.get() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String nearKey = String.valueOf(key);
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = near.asMap().putIfAbsent(nearKey, created);
+        if (existing != null) {
+            nearHits.increment();
+            return (T) join(existing);
+        }
+
+        // This thread owns the load; others asking for the key meanwhile wait on the future
+        long generation = generation(nearKey);
+        try {
+            ValueWrapper remote = farGet(key);
+            Object value;
+            if (remote != null) {
+                farHits.increment();
+                value = remote.get();
+            } else {
+                misses.increment();
+                value = loadLatency.recordCallable(valueLoader);
+                if (value != null && generation(nearKey) == generation) {
+                    farPut(key, value);
+                    // Checked after the put, so an eviction either removed this entry or is seen here
+                    if (generation(nearKey) != generation) {
+                        farEvict(key);
+                    }
+                }
+            }
+            created.complete(value);
+            if (generation(nearKey) != generation) {
+                near.asMap().remove(nearKey, created);
+            }
+            return (T) value;
+        } catch (Exception e) {
+            near.asMap().remove(nearKey, created);
+            created.completeExceptionally(e);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        near.put(String.valueOf(key), CompletableFuture.completedFuture(value));
+        farPut(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String nearKey = String.valueOf(key);
+        generations.incrementAndGet(stripe(nearKey));
+        near.synchronous().invalidate(nearKey);
+        farEvict(key);
+        invalidationPublisher.accept(name, nearKey);
+    }
+
+    @Override
+    public void clear() {
+        bumpAllGenerations();
+        near.synchronous().invalidateAll();
+        farCall(farEvictLatency, () -> {
+            far.clear();
+            return null;
+        });
+        invalidationPublisher.accept(name, null);
+    }
+
+    // Applies an invalidation published by another instance; the far tier is already consistent
+    void evictNear(String nearKey) {
+        if (nearKey == null) {
+            bumpAllGenerations();
+            near.synchronous().invalidateAll();
+        } else {
+            generations.incrementAndGet(stripe(nearKey));
+            near.synchronous().invalidate(nearKey);
+        }
+    }
+
+    private long generation(String nearKey) {
+        return generations.get(stripe(nearKey));
+    }
+
+    private void bumpAllGenerations() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(String nearKey) {
+        int hash = nearKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private ValueWrapper farGet(Object key) {
+        try {
+            return farCall(farGetLatency, () -> far.get(key));
+        } catch (SerializationException e) {
+            // Written by an incompatible build; drop it and reload
+            log.debug("Discarding unreadable {} entry for key {}", name, key, e);
+            farEvict(key);
+            return null;
+        }
+    }
+
+    private void farEvict(Object key) {
+        farCall(farEvictLatency, () -> {
+            far.evict(key);
+            return null;
+        });
+    }
+
+    private void farPut(Object key, Object value) {
+        farCall(farPutLatency, () -> {
+            far.put(key, value);
+            return null;
+        });
+    }
+
+    private <T> T farCall(Timer timer, Supplier<T> call) {
+        if (far == null || !guard.isAvailable()) {
+            return null;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            return call.get();
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            farErrors.increment();
+            guard.markFailed(e);
+            return null;
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    private double hitRatio() {
+        double hits = nearHits.count() + farHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.requests").tag("cache", name).tag("result", result).register(meterRegistry);
+    }
+
+    private Timer farLatency(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("cache.far.latency").tag("cache", name).tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.fitness.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Builds a {@link TwoLevelCache} per cache name. Being transaction aware, puts and evictions
+ * issued inside a transaction are applied after it commits, so a concurrent reader cannot
+ * re-cache the pre-commit row.
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final Collection<String> cacheNames;
+    private final Caffeine<Object, Object> nearSpec;
+    private final RedisCacheManager farCacheManager;
+    private final FarTierGuard farTierGuard;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TwoLevelCache> twoLevelCaches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(Collection<String> cacheNames, Caffeine<Object, Object> nearSpec,
+            RedisCacheManager farCacheManager, FarTierGuard farTierGuard,
+            BiConsumer<String, String> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.cacheNames = List.copyOf(cacheNames);
+        this.nearSpec = nearSpec;
+        this.farCacheManager = farCacheManager;
+        this.farTierGuard = farTierGuard;
+        this.invalidationPublisher = invalidationPublisher;
+        this.meterRegistry = meterRegistry;
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return cacheNames.stream().map(this::createCache).toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    void evictNear(String cacheName, String key) {
+        TwoLevelCache cache = twoLevelCaches.get(cacheName);
+        if (cache != null) {
+            cache.evictNear(key);
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        return twoLevelCaches.computeIfAbsent(name, key -> new TwoLevelCache(key, nearSpec.buildAsync(),
+                farCacheManager != null ? farCacheManager.getCache(key) : null, farTierGuard,
+                invalidationPublisher, meterRegistry));
+    }
+}
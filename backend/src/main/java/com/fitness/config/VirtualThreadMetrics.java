@@ -0,0 +1,115 @@
+package com.fitness.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes carrier thread gauges read from the virtual thread scheduler, and pins above
+ * {@code threads.virtual.pinned-threshold} from an in-process JFR stream. Per-thread start and
+ * end events are left off: they fire for every task and would tax the path being measured.
+ * <p>
+ * A carrier is mounted while it runs a virtual thread. A thread that blocks without unmounting
+ * (in a synchronized block or native frame) pins its carrier; only the JFR event reports that.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadMetrics implements SmartLifecycle {
+
+    private final MeterRegistry meterRegistry;
+    private final Duration pinnedThreshold;
+
+    private volatile RecordingStream stream;
+    private volatile ForkJoinPool scheduler;
+
+    public VirtualThreadMetrics(MeterRegistry meterRegistry,
+            @Value("${threads.virtual.pinned-threshold:20ms}") Duration pinnedThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.pinnedThreshold = pinnedThreshold;
+    }
+
+    @Override
+    public void start() {
+        carrierGauge("jvm.threads.virtual.carriers", "Carrier threads started by the scheduler",
+                ForkJoinPool::getPoolSize);
+        carrierGauge("jvm.threads.virtual.carriers.mounted", "Carriers running a virtual thread",
+                ForkJoinPool::getActiveThreadCount);
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent pinned to their carrier")
+                .register(meterRegistry);
+
+        RecordingStream recording = new RecordingStream();
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(pinnedThreshold).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinned.record(event.getDuration());
+            log.debug("Virtual thread pinned for {} at {}", event.getDuration(), topFrames(event));
+        });
+        recording.startAsync();
+        stream = recording;
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        if (recording != null) {
+            recording.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void carrierGauge(String name, String description, ToIntFunction<ForkJoinPool> value) {
+        Gauge.builder(name, this, metrics -> {
+            ForkJoinPool pool = metrics.scheduler();
+            return pool != null ? value.applyAsInt(pool) : Double.NaN;
+        }).description(description).register(meterRegistry);
+    }
+
+    // The scheduler has no public handle; it is reached through one of its carriers, which only
+    // exist once the first virtual thread has run
+    private ForkJoinPool scheduler() {
+        ForkJoinPool pool = scheduler;
+        if (pool == null) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread instanceof ForkJoinWorkerThread worker
+                        && worker.getClass().getName().equals("jdk.internal.misc.CarrierThread")) {
+                    pool = worker.getPool();
+                    scheduler = pool;
+                    break;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static String topFrames(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(5)
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .collect(Collectors.joining(" <- "));
+    }
+}
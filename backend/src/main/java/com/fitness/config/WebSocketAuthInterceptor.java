@@ -0,0 +1,68 @@
+package com.fitness.config;
+
+import com.fitness.model.User;
+import com.fitness.service.UserPrincipalCache;
+import com.fitness.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Authenticates GraphQL WebSocket connections. Browsers cannot set headers on the upgrade
+ * request, so the JWT comes in the connection_init payload as {@code Authorization} (with or
+ * without the Bearer prefix); a connection without a valid token is closed with 4401.
+ * The user is kept on the session and handed to every operation run over it.
+ */
+@Component
+@RequiredArgsConstructor
+public class WebSocketAuthInterceptor implements WebSocketGraphQlInterceptor {
+
+    public static final String USER_KEY = "webSocketUser";
+
+    private final JwtUtil jwtUtil;
+    private final UserPrincipalCache userPrincipalCache;
+
+    @Override
+    public Mono<Object> handleConnectionInitialization(WebSocketSessionInfo sessionInfo,
+            Map<String, Object> connectionInitPayload) {
+        return sessionInfo.getPrincipal()
+                .filter(principal -> principal instanceof Authentication authentication
+                        && authentication.getPrincipal() instanceof User)
+                .map(principal -> (User) ((Authentication) principal).getPrincipal())
+                .switchIfEmpty(Mono.fromCallable(() -> authenticate(connectionInitPayload)))
+                .switchIfEmpty(Mono.error(new RuntimeException("Unauthorized")))
+                .doOnNext(user -> sessionInfo.getAttributes().put(USER_KEY, user))
+                .then(Mono.empty());
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (request instanceof WebSocketGraphQlRequest webSocketRequest) {
+            Object user = webSocketRequest.getSessionInfo().getAttributes().get(USER_KEY);
+            if (user != null) {
+                request.configureExecutionInput((input, builder) ->
+                        builder.graphQLContext(context -> context.put(USER_KEY, user)).build());
+            }
+        }
+        return chain.next(request);
+    }
+
+    private User authenticate(Map<String, Object> payload) {
+        Object header = payload.getOrDefault("Authorization", payload.get("authorization"));
+        if (!(header instanceof String token)) {
+            return null;
+        }
+        String jwt = token.startsWith("Bearer ") ? token.substring(7) : token;
+        return jwtUtil.validateToken(jwt)
+                .map(claims -> userPrincipalCache.getByUsername(claims.subject()))
+                .orElse(null);
+    }
+}
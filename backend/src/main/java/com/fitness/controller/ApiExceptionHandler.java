@@ -0,0 +1,26 @@
+package com.fitness.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Service errors on the REST endpoints, reported the way GraphQL reports them: as a bad request
+ * carrying the exception message. Services raise their validation errors as plain
+ * {@link RuntimeException}s; subclasses (data access failures, NPEs, status exceptions) are left
+ * to the default handling, as is anything thrown after a streamed response was committed.
+ */
+@RestControllerAdvice(basePackageClasses = ApiExceptionHandler.class)
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleError(RuntimeException e, HttpServletResponse response) {
+        if (e.getClass() != RuntimeException.class || response.isCommitted()) {
+            throw e;
+        }
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
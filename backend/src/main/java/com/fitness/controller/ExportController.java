@@ -0,0 +1,43 @@
+package com.fitness.controller;
+
+import com.fitness.model.User;
+import com.fitness.service.WorkoutExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Downloads of the signed-in user's training history. The export is written to the response
+ * on the request thread instead of through async dispatch, so a long download is not cut off
+ * by the async request timeout.
+ */
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final WorkoutExportService workoutExportService;
+
+    @GetMapping("/workouts")
+    public void exportWorkouts(@RequestParam(defaultValue = "csv") String format,
+            @AuthenticationPrincipal User user, HttpServletResponse response) throws IOException {
+        WorkoutExportService.Format resolved = WorkoutExportService.Format.from(format);
+        workoutExportService.export(user.getId(), resolved, () -> {
+            response.setContentType(resolved.contentType());
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("workouts." + resolved.extension())
+                    .build()
+                    .toString());
+            return response.getOutputStream();
+        });
+    }
+}
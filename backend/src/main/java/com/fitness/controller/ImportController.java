@@ -0,0 +1,52 @@
+package com.fitness.controller;
+
+import com.fitness.model.ImportJob;
+import com.fitness.model.User;
+import com.fitness.service.WorkoutImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File uploads for bulk imports. GraphQL has no multipart support here, so uploads come in over
+ * REST; progress is polled with the importJob query or GET /api/imports/{id}.
+ */
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final WorkoutImportService workoutImportService;
+
+    @PostMapping(value = "/workouts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJob> importWorkouts(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) ImportJob.Format format, @AuthenticationPrincipal User user)
+            throws IOException {
+        ImportJob.Format resolved = WorkoutImportService.resolveFormat(format, file.getOriginalFilename());
+        // Spooled to our own file: the multipart temp file is removed when this request ends
+        Path spooled = Files.createTempFile("workout-import-", "." + resolved.name().toLowerCase(Locale.ROOT));
+        try {
+            file.transferTo(spooled);
+            ImportJob job = workoutImportService.importFile(user.getId(), resolved, file.getOriginalFilename(),
+                    spooled);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ImportJob importJob(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        return workoutImportService.getImportJob(id, user.getId());
+    }
+}
@@ -0,0 +1 @@
+package com.fitness.controller;
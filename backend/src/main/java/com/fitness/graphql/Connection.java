@@ -0,0 +1,23 @@
+package com.fitness.graphql;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record Connection<T>(List<Edge<T>> edges, PageInfo pageInfo) {
+
+    // Expects up to limit + 1 rows; the extra row only signals that another page exists
+    public static <T> Connection<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        List<Edge<T>> edges = rows.stream()
+                .limit(limit)
+                .map(node -> new Edge<>(cursorOf.apply(node).encode(), node))
+                .toList();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+        return new Connection<>(edges, new PageInfo(rows.size() > limit, endCursor));
+    }
+
+    public record Edge<T>(String cursor, T node) {
+    }
+
+    public record PageInfo(boolean hasNextPage, String endCursor) {
+    }
+}
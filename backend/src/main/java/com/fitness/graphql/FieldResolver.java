@@ -0,0 +1,234 @@
+package com.fitness.graphql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fitness.model.*;
+import com.fitness.repository.UserRepository;
+import com.fitness.service.ExerciseService;
+import com.fitness.service.FollowService;
+import com.fitness.service.LikeService;
+import com.fitness.service.TrainingStatsService;
+import com.fitness.service.UserService;
+import com.fitness.service.WorkoutService;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Controller
+@RequiredArgsConstructor
+public class FieldResolver {
+
+    private final UserService userService;
+    private final ExerciseService exerciseService;
+    private final LikeService likeService;
+    private final FollowService followService;
+    private final WorkoutService workoutService;
+    private final ObjectMapper objectMapper;
+
+    @BatchMapping(typeName = "Workout", field = "user")
+    public Map<Workout, User> workoutUser(List<Workout> workouts) {
+        return loadUsers(workouts, Workout::getUser);
+    }
+
+    @BatchMapping(typeName = "Comment", field = "user")
+    public Map<Comment, User> commentUser(List<Comment> comments) {
+        return loadUsers(comments, Comment::getUser);
+    }
+
+    @BatchMapping(typeName = "ActivityFeed", field = "originUser")
+    public Map<ActivityFeed, User> activityOriginUser(List<ActivityFeed> activities) {
+        return loadUsers(activities, ActivityFeed::getOriginUser);
+    }
+
+    @BatchMapping(typeName = "Exercise", field = "createdBy")
+    public Map<Exercise, User> exerciseCreatedBy(List<Exercise> exercises) {
+        return loadUsers(exercises, Exercise::getCreatedBy);
+    }
+
+    @BatchMapping(typeName = "Routine", field = "owner")
+    public Map<Routine, User> routineOwner(List<Routine> routines) {
+        return loadUsers(routines, Routine::getOwner);
+    }
+
+    @BatchMapping(typeName = "WorkoutExercise", field = "exercise")
+    public Map<WorkoutExercise, Exercise> workoutExercise(List<WorkoutExercise> workoutExercises) {
+        return loadExercises(workoutExercises, WorkoutExercise::getExercise);
+    }
+
+    @BatchMapping(typeName = "RoutineExercise", field = "exercise")
+    public Map<RoutineExercise, Exercise> routineExercise(List<RoutineExercise> routineExercises) {
+        return loadExercises(routineExercises, RoutineExercise::getExercise);
+    }
+
+    @BatchMapping(typeName = "PersonalRecord", field = "exercise")
+    public Map<TrainingStatsService.PersonalRecord, Exercise> personalRecordExercise(
+            List<TrainingStatsService.PersonalRecord> records) {
+        Map<Long, Exercise> exercises = exerciseService.getExercisesByIds(
+                records.stream().map(TrainingStatsService.PersonalRecord::exerciseId).toList());
+        return byParent(records, records.stream().map(record -> exercises.get(record.exerciseId())).toList());
+    }
+
+    @BatchMapping(typeName = "User", field = "followersCount")
+    public List<Integer> followersCount(List<User> users) {
+        Map<Long, UserRepository.FollowCounts> counts = followService.getFollowCounts(
+                users.stream().map(User::getId).toList());
+        return users.stream()
+                .map(user -> counts.containsKey(user.getId()) ? counts.get(user.getId()).getFollowersCount() : 0)
+                .toList();
+    }
+
+    @BatchMapping(typeName = "User", field = "followingCount")
+    public List<Integer> followingCount(List<User> users) {
+        Map<Long, UserRepository.FollowCounts> counts = followService.getFollowCounts(
+                users.stream().map(User::getId).toList());
+        return users.stream()
+                .map(user -> counts.containsKey(user.getId()) ? counts.get(user.getId()).getFollowingCount() : 0)
+                .toList();
+    }
+
+    @BatchMapping(typeName = "Workout", field = "isLiked")
+    public List<Boolean> workoutIsLiked(List<Workout> workouts, Principal principal) {
+        return likedFlags(workouts, Like.ParentType.WORKOUT, Workout::getId, principal);
+    }
+
+    @BatchMapping(typeName = "Routine", field = "isLiked")
+    public List<Boolean> routineIsLiked(List<Routine> routines, Principal principal) {
+        return likedFlags(routines, Like.ParentType.ROUTINE, Routine::getId, principal);
+    }
+
+    private <P> List<Boolean> likedFlags(List<P> parents, Like.ParentType parentType, Function<P, Long> idGetter,
+            Principal principal) {
+        if (!(principal instanceof Authentication authentication)
+                || !(authentication.getPrincipal() instanceof User user)) {
+            return parents.stream().map(parent -> false).toList();
+        }
+        List<Long> parentIds = parents.stream().map(idGetter).toList();
+        Set<Long> liked = likeService.getLikedParentIds(user.getId(), parentType, parentIds);
+        return parentIds.stream().map(liked::contains).toList();
+    }
+
+    @SchemaMapping(typeName = "Notification", field = "read")
+    public boolean notificationRead(Notification notification) {
+        return Boolean.TRUE.equals(notification.getIsRead());
+    }
+
+    @BatchMapping(typeName = "Notification", field = "message")
+    public List<String> notificationMessage(List<Notification> notifications) {
+        Map<Notification, User> actors = loadUsers(notifications, this::actor);
+        List<String> messages = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String parent = payload(notification).path("parentType").asText("WORKOUT").toLowerCase(Locale.ROOT);
+            messages.add(message(notification, actors.get(notification), parent));
+        }
+        return messages;
+    }
+
+    @BatchMapping(typeName = "Notification", field = "relatedUser")
+    public Map<Notification, User> notificationRelatedUser(List<Notification> notifications) {
+        return loadUsers(notifications, this::actor);
+    }
+
+    @BatchMapping(typeName = "Notification", field = "relatedWorkout")
+    public Map<Notification, Workout> notificationRelatedWorkout(List<Notification> notifications) {
+        List<Long> ids = notifications.stream()
+                .map(this::payload)
+                .map(payload -> "WORKOUT".equals(payload.path("parentType").asText())
+                        ? longOrNull(payload.get("parentId")) : null)
+                .toList();
+        Map<Long, Workout> workouts = workoutService.getWorkoutsByIds(
+                ids.stream().filter(Objects::nonNull).collect(Collectors.toSet()));
+        return byParent(notifications, ids.stream().map(id -> id != null ? workouts.get(id) : null).toList());
+    }
+
+    // Batch results given as a list may not hold nulls, and associations such as Exercise.createdBy
+    // are optional; a map simply leaves those parents out
+    private static <P, T> Map<P, T> byParent(List<P> parents, List<T> values) {
+        Map<P, T> result = new HashMap<>();
+        for (int i = 0; i < parents.size(); i++) {
+            if (values.get(i) != null) {
+                result.put(parents.get(i), values.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static String message(Notification notification, User actor, String parent) {
+        String name = actor == null ? "Someone"
+                : actor.getDisplayName() != null && !actor.getDisplayName().isBlank() ? actor.getDisplayName()
+                : actor.getUsername();
+        int others = notification.getActorCount() != null ? notification.getActorCount() - 1 : 0;
+        if (others > 0) {
+            name += " and " + others + (others == 1 ? " other" : " others");
+        }
+        return switch (notification.getType()) {
+            case NEW_FOLLOW -> name + " started following you";
+            case NEW_LIKE -> name + " liked your " + parent;
+            case NEW_COMMENT -> name + " commented on your " + parent;
+            case ACTIVITY_FROM_FOLLOWER -> name + " posted a new workout";
+        };
+    }
+
+    // Only the id is set; loadUsers resolves it in one batch
+    private User actor(Notification notification) {
+        Long actorId = longOrNull(payload(notification).get("actorId"));
+        return actorId != null ? User.builder().id(actorId).build() : null;
+    }
+
+    private JsonNode payload(Notification notification) {
+        if (notification.getPayload() == null) {
+            return MissingNode.getInstance();
+        }
+        try {
+            return objectMapper.readTree(notification.getPayload());
+        } catch (JsonProcessingException e) {
+            return MissingNode.getInstance();
+        }
+    }
+
+    private static Long longOrNull(JsonNode node) {
+        return node != null && node.canConvertToLong() ? node.asLong() : null;
+    }
+
+    private <P> Map<P, User> loadUsers(List<P> parents, Function<P, User> association) {
+        List<Long> ids = referenceIds(parents, association, User::getId);
+        Map<Long, User> users = userService.getUsersByIds(ids.stream().filter(Objects::nonNull).toList());
+        return byParent(parents, ids.stream().map(id -> id != null ? users.get(id) : null).toList());
+    }
+
+    private <P> Map<P, Exercise> loadExercises(List<P> parents, Function<P, Exercise> association) {
+        List<Long> ids = referenceIds(parents, association, Exercise::getId);
+        Map<Long, Exercise> exercises = exerciseService.getExercisesByIds(ids.stream().filter(Objects::nonNull).toList());
+        return byParent(parents, ids.stream().map(id -> id != null ? exercises.get(id) : null).toList());
+    }
+
+    private static <P, T> List<Long> referenceIds(List<P> parents, Function<P, T> association,
+            Function<T, Long> idGetter) {
+        return parents.stream()
+                .map(parent -> referenceId(association.apply(parent), idGetter))
+                .toList();
+    }
+
+    // Reads the foreign key off an uninitialized proxy without triggering a SELECT
+    private static <T> Long referenceId(T reference, Function<T, Long> idGetter) {
+        if (reference instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return reference != null ? idGetter.apply(reference) : null;
+    }
+}
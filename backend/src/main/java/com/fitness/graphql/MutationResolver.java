@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
@@ -23,13 +24,18 @@ public class MutationResolver {
     private final LikeService likeService;
     private final CommentService commentService;
     private final UserService userService;
+    private final WorkoutImportService workoutImportService;
+    private final NotificationService notificationService;
 
     @Autowired(required = false)
     private MediaService mediaService;
 
     private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.getUserByUsername(username);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return userService.getUserByUsername(authentication.getName());
     }
 
     @MutationMapping
@@ -103,7 +109,14 @@ public class MutationResolver {
         if (mediaService == null) {
             throw new IllegalStateException("S3 media service is not configured");
         }
-        return mediaService.presignUpload(contentType, folder);
+        return mediaService.presignUpload(getCurrentUser().getId(), contentType, folder);
+    }
+
+    @MutationMapping
+    public ImportJob importWorkouts(@Argument String objectKey, @Argument ImportJob.Format format) {
+        User user = getCurrentUser();
+        return workoutImportService.importObject(user.getId(),
+                WorkoutImportService.resolveFormat(format, objectKey), objectKey);
     }
 
     @MutationMapping
@@ -112,6 +125,17 @@ public class MutationResolver {
         return userService.updateProfile(currentUser.getId(), input.displayName(), input.bio(), input.avatarUrl());
     }
 
+    @MutationMapping
+    public Boolean markNotificationRead(@Argument Long id) {
+        return notificationService.markRead(getCurrentUser().getId(), id);
+    }
+
+    @MutationMapping
+    public Boolean markAllNotificationsRead() {
+        notificationService.markAllRead(getCurrentUser().getId());
+        return true;
+    }
+
     @MutationMapping
     public AuthPayload refreshToken(@Argument String token) {
         Map<String, String> result = authService.refreshToken(token);
@@ -3,31 +3,49 @@ package com.fitness.graphql;
 import com.fitness.model.*;
 import com.fitness.service.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 @Controller
 @RequiredArgsConstructor
 public class QueryResolver {
 
+    private static final int DEFAULT_CONNECTION_SIZE = 20;
+    private static final int DEFAULT_VOLUME_WEEKS = 12;
+
     private final UserService userService;
     private final WorkoutService workoutService;
     private final RoutineService routineService;
     private final ExerciseService exerciseService;
     private final ActivityFeedService activityFeedService;
     private final CommentService commentService;
+    private final WorkoutImportService workoutImportService;
+    private final TrainingStatsService trainingStatsService;
+    private final ExerciseProgressService exerciseProgressService;
+    private final NotificationService notificationService;
+
+    @Value("${graphql.limits.max-page-size:100}")
+    private int maxPageSize;
 
     @QueryMapping
     public User me() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.getUserByUsername(username);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return userService.getUserByUsername(authentication.getName());
     }
 
     @QueryMapping
@@ -53,10 +71,23 @@ public class QueryResolver {
         }
 
         var result = workoutService.getUserWorkouts(resolvedUserId,
-                PageRequest.of(page, size, Sort.by("startTime").descending()));
+                PageRequest.of(page, pageSize(size), Sort.by("startTime").descending()));
         return new WorkoutPage(result.getContent(), result.getTotalPages(), (int) result.getTotalElements());
     }
 
+    @QueryMapping
+    public Connection<Workout> userWorkoutsConnection(@Argument Long userId, @Argument Integer first,
+            @Argument String after) {
+        Long resolvedUserId = userId != null ? userId : me().getId();
+        int limit = connectionSize(first);
+        Cursor cursor = Cursor.decode(after);
+
+        List<Workout> rows = cursor == null
+                ? workoutService.getUserWorkoutsBefore(resolvedUserId, null, null, limit + 1)
+                : workoutService.getUserWorkoutsBefore(resolvedUserId, cursor.timestamp(), cursor.id(), limit + 1);
+        return Connection.of(rows, limit, workout -> new Cursor(workout.getStartTime(), workout.getId()));
+    }
+
     @QueryMapping
     public Routine routine(@Argument Long id) {
         return routineService.getRoutineById(id);
@@ -68,9 +99,17 @@ public class QueryResolver {
     }
 
     @QueryMapping
-    public List<Exercise> exercises(@Argument String query) {
-        if (query != null && !query.isBlank()) {
-            return exerciseService.searchExercises(query);
+    public List<Exercise> exercises(@Argument String query, @Argument String category, @Argument Integer limit) {
+        Exercise.ExerciseCategory exerciseCategory = null;
+        if (category != null && !category.isBlank()) {
+            try {
+                exerciseCategory = Exercise.ExerciseCategory.valueOf(category.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid category");
+            }
+        }
+        if ((query != null && !query.isBlank()) || exerciseCategory != null || limit != null) {
+            return exerciseService.searchExercises(query, exerciseCategory, limit);
         }
         return exerciseService.getAllExercises();
     }
@@ -84,18 +123,95 @@ public class QueryResolver {
     public FeedSlice feed(@Argument int page, @Argument int size) {
         User currentUser = me();
         Slice<ActivityFeed> slice = activityFeedService.getFeed(currentUser.getId(),
-                PageRequest.of(page, size, Sort.by("createdAt").descending()));
+                PageRequest.of(page, pageSize(size), Sort.by("createdAt").descending()));
         return new FeedSlice(slice.getContent(), slice.hasNext());
     }
 
+    @QueryMapping
+    public Connection<ActivityFeed> feedConnection(@Argument Integer first, @Argument String after) {
+        User currentUser = me();
+        int limit = connectionSize(first);
+        Cursor cursor = Cursor.decode(after);
+
+        List<ActivityFeed> rows = cursor == null
+                ? activityFeedService.getFeedBefore(currentUser.getId(), null, null, limit + 1)
+                : activityFeedService.getFeedBefore(currentUser.getId(), cursor.timestamp(), cursor.id(), limit + 1);
+        return Connection.of(rows, limit, activity -> new Cursor(activity.getCreatedAt(), activity.getId()));
+    }
+
     @QueryMapping
     public CommentPage comments(@Argument Comment.ParentType parentType, @Argument Long parentId, @Argument int page,
             @Argument int size) {
         var result = commentService.getComments(parentType, parentId,
-                PageRequest.of(page, size, Sort.by("createdAt").descending()));
+                PageRequest.of(page, pageSize(size), Sort.by("createdAt").descending()));
         return new CommentPage(result.getContent(), result.getTotalPages(), (int) result.getTotalElements());
     }
 
+    @QueryMapping
+    public Connection<Comment> commentsConnection(@Argument Comment.ParentType parentType, @Argument Long parentId,
+            @Argument Integer first, @Argument String after) {
+        int limit = connectionSize(first);
+        Cursor cursor = Cursor.decode(after);
+
+        List<Comment> rows = cursor == null
+                ? commentService.getCommentsBefore(parentType, parentId, null, null, limit + 1)
+                : commentService.getCommentsBefore(parentType, parentId, cursor.timestamp(), cursor.id(), limit + 1);
+        return Connection.of(rows, limit, comment -> new Cursor(comment.getCreatedAt(), comment.getId()));
+    }
+
+    @QueryMapping
+    public NotificationPage notifications(@Argument int page, @Argument int size) {
+        Long userId = me().getId();
+        var result = notificationService.getNotifications(userId,
+                PageRequest.of(page, pageSize(size), Sort.by(Sort.Direction.DESC, "updatedAt", "id")));
+        return new NotificationPage(result.getContent(), result.getTotalPages(), (int) result.getTotalElements(),
+                notificationService.getUnreadCount(userId));
+    }
+
+    @QueryMapping
+    public ImportJob importJob(@Argument Long id) {
+        return workoutImportService.getImportJob(id, me().getId());
+    }
+
+    @QueryMapping
+    public TrainingStatsService.TrainingSummary trainingSummary() {
+        return trainingStatsService.getSummary(me().getId());
+    }
+
+    @QueryMapping
+    public List<TrainingStatsService.VolumePoint> trainingVolume(@Argument Long exerciseId,
+            @Argument TrainingStatsService.Period period, @Argument LocalDate from, @Argument LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusWeeks(DEFAULT_VOLUME_WEEKS);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        return trainingStatsService.getVolume(me().getId(), exerciseId,
+                period != null ? period : TrainingStatsService.Period.WEEK, start, end);
+    }
+
+    @QueryMapping
+    public List<TrainingStatsService.PersonalRecord> personalRecords() {
+        return trainingStatsService.getPersonalRecords(me().getId());
+    }
+
+    @QueryMapping
+    public List<ExerciseProgressService.ProgressPoint> exerciseProgress(@Argument Long exerciseId,
+            @Argument SetSeries.Metric metric, @Argument OffsetDateTime from, @Argument OffsetDateTime to,
+            @Argument Integer buckets) {
+        return exerciseProgressService.getProgress(me().getId(), exerciseId,
+                metric != null ? metric : SetSeries.Metric.WEIGHT, from, to, buckets);
+    }
+
+    private int connectionSize(Integer first) {
+        return first != null && first > 0 ? Math.min(first, maxPageSize) : DEFAULT_CONNECTION_SIZE;
+    }
+
+    // Same cap the query cost check assumes
+    private int pageSize(int size) {
+        return Math.min(size, maxPageSize);
+    }
+
     // DTOs
     public record WorkoutPage(List<Workout> content, int totalPages, int totalElements) {
     }
@@ -105,4 +221,7 @@ public class QueryResolver {
 
     public record CommentPage(List<Comment> content, int totalPages, int totalElements) {
     }
+
+    public record NotificationPage(List<Notification> content, int totalPages, int totalElements, long unreadCount) {
+    }
 }
@@ -0,0 +1,36 @@
+package com.fitness.graphql;
+
+import com.fitness.config.WebSocketAuthInterceptor;
+import com.fitness.model.ActivityFeed;
+import com.fitness.model.Notification;
+import com.fitness.model.User;
+import com.fitness.service.FeedHub;
+import com.fitness.service.NotificationHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.ContextValue;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+@Controller
+@RequiredArgsConstructor
+public class SubscriptionResolver {
+
+    private final NotificationHub notificationHub;
+    private final FeedHub feedHub;
+
+    @SubscriptionMapping
+    public Flux<Notification> notificationAdded(@ContextValue(name = WebSocketAuthInterceptor.USER_KEY) User user) {
+        return notificationHub.notifications(user.getId());
+    }
+
+    @SubscriptionMapping
+    public Flux<Long> unreadCount(@ContextValue(name = WebSocketAuthInterceptor.USER_KEY) User user) {
+        return notificationHub.unreadCounts(user.getId());
+    }
+
+    @SubscriptionMapping
+    public Flux<ActivityFeed> feedUpdated(@ContextValue(name = WebSocketAuthInterceptor.USER_KEY) User user) {
+        return feedHub.updates(user.getId());
+    }
+}
@@ -2,6 +2,8 @@ package com.fitness.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "activity_feed")
@@ -24,6 +26,7 @@ public class ActivityFeed extends BaseEntity {
     @Column(nullable = false)
     private ActivityType type;
 
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
     private String payload;
 
@@ -31,6 +34,11 @@ public class ActivityFeed extends BaseEntity {
     @Builder.Default
     private Visibility visibility = Visibility.PUBLIC;
 
+    // Cleared by the fan-out when the author is over the celebrity threshold; followers then read it at query time
+    @Column(name = "fanned_out", insertable = false, updatable = false)
+    @Builder.Default
+    private Boolean fannedOut = true;
+
     public enum ActivityType {
         WORKOUT_CREATED, ROUTINE_PUBLISHED, USER_FOLLOWED
     }
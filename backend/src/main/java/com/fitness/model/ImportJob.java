@@ -0,0 +1,72 @@
+package com.fitness.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "import_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJob extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Format format;
+
+    private String source;
+
+    @Column(name = "processed_rows", nullable = false)
+    @Builder.Default
+    private Integer processedRows = 0;
+
+    @Column(name = "imported_workouts", nullable = false)
+    @Builder.Default
+    private Integer importedWorkouts = 0;
+
+    @Column(name = "failed_rows", nullable = false)
+    @Builder.Default
+    private Integer failedRows = 0;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    public record RowError(int row, String message) implements Serializable {
+    }
+}
@@ -2,6 +2,8 @@ package com.fitness.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "notifications")
@@ -24,6 +26,7 @@ public class Notification extends BaseEntity {
     @Column(nullable = false)
     private NotificationType type;
 
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
     private String payload;
 
@@ -31,6 +34,14 @@ public class Notification extends BaseEntity {
     @Builder.Default
     private Boolean isRead = false;
 
+    // Bursts of the same kind of notification share a group and are folded into one row
+    @Column(name = "group_key")
+    private String groupKey;
+
+    @Column(name = "actor_count", nullable = false)
+    @Builder.Default
+    private Integer actorCount = 1;
+
     public enum NotificationType {
         NEW_FOLLOW, NEW_COMMENT, NEW_LIKE, ACTIVITY_FROM_FOLLOWER
     }
@@ -2,6 +2,7 @@ package com.fitness.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,7 +17,8 @@ import java.util.List;
 public class Routine extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "routines_id_seq")
+    @SequenceGenerator(name = "routines_id_seq", sequenceName = "routines_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,12 +34,23 @@ public class Routine extends BaseEntity {
     @Builder.Default
     private Boolean isPublic = false;
 
+    // Maintained with atomic SQL increments, never written from the entity
+    @Column(name = "like_count", insertable = false, updatable = false)
+    @Builder.Default
+    private Integer likeCount = 0;
+
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    @Builder.Default
+    private Integer commentCount = 0;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "copied_from_id")
     private Routine copiedFrom;
 
+    // A page of routines loads the exercise lists of all of them in one statement
     @OneToMany(mappedBy = "routine", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("orderIndex ASC")
+    @BatchSize(size = 100)
     @Builder.Default
     private List<RoutineExercise> exercises = new ArrayList<>();
 }
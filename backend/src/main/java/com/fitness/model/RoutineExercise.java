@@ -13,7 +13,8 @@ import lombok.*;
 public class RoutineExercise {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "routine_exercises_id_seq")
+    @SequenceGenerator(name = "routine_exercises_id_seq", sequenceName = "routine_exercises_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
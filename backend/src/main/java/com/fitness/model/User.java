@@ -6,6 +6,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.io.Serial;
 import java.util.Collection;
 import java.util.List;
 
@@ -18,6 +19,10 @@ import java.util.List;
 @Builder
 public class User extends BaseEntity implements UserDetails {
 
+    // Serializable only through UserDetails; the far cache stores a JSON snapshot instead
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -39,11 +44,12 @@ public class User extends BaseEntity implements UserDetails {
     @Column(name = "avatar_url")
     private String avatarUrl;
 
-    @Column(name = "followers_count")
+    // Base values only; pending deltas live in user_counter_shards (see FollowService)
+    @Column(name = "followers_count", updatable = false)
     @Builder.Default
     private Integer followersCount = 0;
 
-    @Column(name = "following_count")
+    @Column(name = "following_count", updatable = false)
     @Builder.Default
     private Integer followingCount = 0;
 
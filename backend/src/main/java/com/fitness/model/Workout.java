@@ -2,6 +2,9 @@ package com.fitness.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -17,7 +20,8 @@ import java.util.List;
 public class Workout extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workouts_id_seq")
+    @SequenceGenerator(name = "workouts_id_seq", sequenceName = "workouts_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -43,11 +47,23 @@ public class Workout extends BaseEntity {
     @Builder.Default
     private Boolean isPrivate = false;
 
+    // Maintained with atomic SQL increments, never written from the entity
+    @Column(name = "like_count", insertable = false, updatable = false)
+    @Builder.Default
+    private Integer likeCount = 0;
+
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    @Builder.Default
+    private Integer commentCount = 0;
+
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "media_urls", columnDefinition = "jsonb")
     private String mediaUrls; // Stored as JSON string
 
+    // A page of workouts loads the exercise lists of all of them in one statement
     @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("orderIndex ASC")
+    @BatchSize(size = 100)
     @Builder.Default
     private List<WorkoutExercise> exercises = new ArrayList<>();
 }
@@ -15,7 +15,8 @@ import java.math.BigDecimal;
 public class WorkoutExercise {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workout_exercises_id_seq")
+    @SequenceGenerator(name = "workout_exercises_id_seq", sequenceName = "workout_exercises_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,20 +1,85 @@
 package com.fitness.repository;
 
 import com.fitness.model.ActivityFeed;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ActivityFeedRepository extends JpaRepository<ActivityFeed, Long> {
 
-    @Query("SELECT af FROM ActivityFeed af WHERE " +
-            "(af.visibility = 'PUBLIC') OR " +
-            "(af.visibility = 'FOLLOWERS_ONLY' AND af.originUser.id IN :followedIds) OR " +
-            "(af.originUser.id = :currentUserId)")
-    Slice<ActivityFeed> findFeedForUser(Long currentUserId, List<Long> followedIds, Pageable pageable);
+    @Query(value = "SELECT af.* FROM home_timeline ht " +
+            "JOIN activity_feed af ON af.id = ht.activity_id " +
+            "WHERE ht.user_id = :userId " +
+            "ORDER BY ht.created_at DESC, ht.activity_id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ActivityFeed> findHomeTimeline(Long userId, int limit);
+
+    @Query(value = "SELECT af.* FROM home_timeline ht " +
+            "JOIN activity_feed af ON af.id = ht.activity_id " +
+            "WHERE ht.user_id = :userId " +
+            "AND (ht.created_at, ht.activity_id) < (:createdAt, :id) " +
+            "ORDER BY ht.created_at DESC, ht.activity_id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ActivityFeed> findHomeTimelineBefore(Long userId, OffsetDateTime createdAt, Long id, int limit);
+
+    @Query("SELECT af FROM ActivityFeed af WHERE af.originUser.id IN :originUserIds " +
+            "AND af.visibility <> 'PRIVATE' AND af.fannedOut = false " +
+            "ORDER BY af.createdAt DESC, af.id DESC")
+    List<ActivityFeed> findPulledByOriginUsers(Collection<Long> originUserIds, Limit limit);
+
+    @Query(value = "SELECT af.* FROM activity_feed af " +
+            "WHERE af.origin_user_id IN (:originUserIds) " +
+            "AND af.visibility IS DISTINCT FROM 'PRIVATE' AND NOT af.fanned_out " +
+            "AND (af.created_at, af.id) < (:createdAt, :id) " +
+            "ORDER BY af.created_at DESC, af.id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ActivityFeed> findPulledByOriginUsersBefore(Collection<Long> originUserIds, OffsetDateTime createdAt, Long id,
+            int limit);
+
+    // Follower counts are the users column plus the not yet compacted shard deltas. Activity of
+    // authors over the threshold is marked as pulled instead, in the same statement, so every
+    // activity is either in its followers' timelines or read at query time.
+    @Modifying
+    @Query(value = "WITH pulled AS (" +
+            "UPDATE activity_feed af SET fanned_out = FALSE FROM users u " +
+            "WHERE af.id IN (:activityIds) AND u.id = af.origin_user_id " +
+            "AND af.visibility IS DISTINCT FROM 'PRIVATE' " +
+            "AND COALESCE(u.followers_count, 0) + COALESCE((SELECT SUM(s.followers_delta) " +
+            "FROM user_counter_shards s WHERE s.user_id = u.id), 0) >= :celebrityThreshold " +
+            "RETURNING af.id) " +
+            "INSERT INTO home_timeline (user_id, activity_id, origin_user_id, created_at) " +
+            "SELECT af.origin_user_id, af.id, af.origin_user_id, af.created_at " +
+            "FROM activity_feed af WHERE af.id IN (:activityIds) " +
+            "UNION ALL " +
+            "SELECT f.follower_id, af.id, af.origin_user_id, af.created_at " +
+            "FROM activity_feed af " +
+            "JOIN follows f ON f.followee_id = af.origin_user_id " +
+            "WHERE af.id IN (:activityIds) " +
+            "AND af.visibility IS DISTINCT FROM 'PRIVATE' " +
+            "AND af.id NOT IN (SELECT id FROM pulled) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int fanOut(Collection<Long> activityIds, int celebrityThreshold);
+
+    @Modifying
+    @Query(value = "INSERT INTO home_timeline (user_id, activity_id, origin_user_id, created_at) " +
+            "SELECT :followerId, af.id, af.origin_user_id, af.created_at " +
+            "FROM activity_feed af " +
+            "WHERE af.origin_user_id = :followeeId " +
+            "AND af.visibility IS DISTINCT FROM 'PRIVATE' " +
+            "ORDER BY af.created_at DESC, af.id DESC " +
+            "LIMIT :limit " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int backfillTimeline(Long followerId, Long followeeId, int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM home_timeline WHERE user_id = :followerId AND origin_user_id = :followeeId",
+            nativeQuery = true)
+    int removeFromTimeline(Long followerId, Long followeeId);
 }
@@ -4,8 +4,11 @@ import com.fitness.model.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Repository
@@ -14,4 +17,20 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
             Pageable pageable);
 
     List<Comment> findByUserId(Long userId);
+
+    @Query(value = "SELECT * FROM comments WHERE parent_type = :parentType AND parent_id = :parentId " +
+            "AND deleted_at IS NULL " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Comment> findLatestByParent(String parentType, Long parentId, int limit);
+
+    @Query(value = "SELECT * FROM comments WHERE parent_type = :parentType AND parent_id = :parentId " +
+            "AND deleted_at IS NULL " +
+            "AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Comment> findByParentBefore(String parentType, Long parentId, OffsetDateTime createdAt, Long id, int limit);
+
+    // Only the delete that actually flips deleted_at sees 1, so concurrent deletes decrement once
+    @Modifying
+    @Query(value = "UPDATE comments SET deleted_at = now() WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(Long id);
 }
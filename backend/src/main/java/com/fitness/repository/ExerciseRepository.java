@@ -2,6 +2,7 @@ package com.fitness.repository;
 
 import com.fitness.model.Exercise;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,9 @@ public interface ExerciseRepository extends JpaRepository<Exercise, Long> {
     List<Exercise> findByNameContainingIgnoreCase(String name);
 
     List<Exercise> findByCategory(Exercise.ExerciseCategory category);
+
+    // Cheap change detector for the in-memory catalog
+    @Query(value = "SELECT COUNT(*) || ':' || COALESCE(MAX(id), 0) || ':' || " +
+            "COALESCE(EXTRACT(EPOCH FROM MAX(updated_at)), 0) FROM exercises", nativeQuery = true)
+    String fingerprint();
 }
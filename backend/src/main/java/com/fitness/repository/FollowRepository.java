@@ -2,6 +2,7 @@ package com.fitness.repository;
 
 import com.fitness.model.Follow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -15,11 +16,19 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
 
     long countByFolloweeId(Long followeeId);
 
-    void deleteByFollowerIdAndFolloweeId(Long followerId, Long followeeId);
+    @Modifying
+    @Query("DELETE FROM Follow f WHERE f.follower.id = :followerId AND f.followee.id = :followeeId")
+    int deleteByFollowerIdAndFolloweeId(Long followerId, Long followeeId);
 
     @Query("SELECT f.follower.id FROM Follow f WHERE f.followee.id = :userId")
     List<Long> findFollowerIds(Long userId);
 
     @Query("SELECT f.followee.id FROM Follow f WHERE f.follower.id = :userId")
     List<Long> findFolloweeIds(Long userId);
+
+    // Followees with activity that ActivityFeedRepository.fanOut left to be read at query time
+    @Query(value = "SELECT f.followee_id FROM follows f WHERE f.follower_id = :userId " +
+            "AND EXISTS (SELECT 1 FROM activity_feed af " +
+            "WHERE af.origin_user_id = f.followee_id AND NOT af.fanned_out)", nativeQuery = true)
+    List<Long> findFolloweeIdsWithPulledActivity(Long userId);
 }
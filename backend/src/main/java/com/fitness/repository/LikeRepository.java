@@ -2,13 +2,24 @@ package com.fitness.repository;
 
 import com.fitness.model.Like;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface LikeRepository extends JpaRepository<Like, Long> {
     boolean existsByUserIdAndParentTypeAndParentId(Long userId, Like.ParentType parentType, Long parentId);
 
     long countByParentTypeAndParentId(Like.ParentType parentType, Long parentId);
 
-    void deleteByUserIdAndParentTypeAndParentId(Long userId, Like.ParentType parentType, Long parentId);
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.user.id = :userId AND l.parentType = :parentType AND l.parentId = :parentId")
+    int deleteByUserIdAndParentTypeAndParentId(Long userId, Like.ParentType parentType, Long parentId);
+
+    @Query("SELECT l.parentId FROM Like l WHERE l.user.id = :userId AND l.parentType = :parentType " +
+            "AND l.parentId IN :parentIds")
+    List<Long> findLikedParentIds(Long userId, Like.ParentType parentType, Collection<Long> parentIds);
 }
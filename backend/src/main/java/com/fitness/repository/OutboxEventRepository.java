@@ -0,0 +1,34 @@
+package com.fitness.repository;
+
+import com.fitness.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Rows locked by another dispatcher are skipped rather than waited on
+    @Query(value = "SELECT * FROM outbox_events " +
+            "WHERE failed_at IS NULL AND available_at <= CURRENT_TIMESTAMP " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimBatch(int limit);
+
+    @Query(value = "SELECT * FROM outbox_events WHERE id = :id AND failed_at IS NULL FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<OutboxEvent> claimById(Long id);
+
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET attempts = attempts + 1, last_error = :error, " +
+            "available_at = CURRENT_TIMESTAMP + make_interval(secs => :backoffSeconds), " +
+            "failed_at = CASE WHEN attempts + 1 >= :maxAttempts THEN CURRENT_TIMESTAMP END " +
+            "WHERE id = :id", nativeQuery = true)
+    int markFailed(Long id, String error, double backoffSeconds, int maxAttempts);
+
+    @Query(value = "SELECT COUNT(*) FROM outbox_events WHERE failed_at IS NULL", nativeQuery = true)
+    long countPending();
+}
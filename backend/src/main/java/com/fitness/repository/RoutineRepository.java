@@ -3,14 +3,46 @@ package com.fitness.repository;
 import com.fitness.model.Routine;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RoutineRepository extends JpaRepository<Routine, Long> {
+
+    // Loads the exercise list up front so the entity can be cached and read detached
+    @EntityGraph(attributePaths = "exercises")
+    Optional<Routine> findWithExercisesById(Long id);
     List<Routine> findByOwnerId(Long ownerId);
 
     Page<Routine> findByIsPublicTrue(Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE routines SET like_count = GREATEST(like_count + :delta, 0) WHERE id = :id", nativeQuery = true)
+    int adjustLikeCount(Long id, int delta);
+
+    @Modifying
+    @Query(value = "UPDATE routines SET comment_count = GREATEST(comment_count + :delta, 0) WHERE id = :id",
+            nativeQuery = true)
+    int adjustCommentCount(Long id, int delta);
+
+    @Modifying
+    @Query(value = "UPDATE routines t SET like_count = c.actual " +
+            "FROM (SELECT p.id, COUNT(l.id) AS actual FROM routines p " +
+            "LEFT JOIN likes l ON l.parent_type = 'ROUTINE' AND l.parent_id = p.id GROUP BY p.id) c " +
+            "WHERE c.id = t.id AND t.like_count <> c.actual", nativeQuery = true)
+    int reconcileLikeCounts();
+
+    @Modifying
+    @Query(value = "UPDATE routines t SET comment_count = c.actual " +
+            "FROM (SELECT p.id, COUNT(cm.id) AS actual FROM routines p " +
+            "LEFT JOIN comments cm ON cm.parent_type = 'ROUTINE' AND cm.parent_id = p.id " +
+            "AND cm.deleted_at IS NULL GROUP BY p.id) c " +
+            "WHERE c.id = t.id AND t.comment_count <> c.actual", nativeQuery = true)
+    int reconcileCommentCounts();
 }
@@ -2,8 +2,12 @@ package com.fitness.repository;
 
 import com.fitness.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +19,40 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_counter_shards (user_id, shard, followers_delta, following_delta) " +
+            "VALUES (:userId, :shard, :followersDelta, :followingDelta) " +
+            "ON CONFLICT (user_id, shard) DO UPDATE SET " +
+            "followers_delta = user_counter_shards.followers_delta + EXCLUDED.followers_delta, " +
+            "following_delta = user_counter_shards.following_delta + EXCLUDED.following_delta", nativeQuery = true)
+    int addCounterDelta(Long userId, int shard, int followersDelta, int followingDelta);
+
+    @Query(value = "SELECT u.id AS userId, " +
+            "COALESCE(u.followers_count, 0) + COALESCE(SUM(s.followers_delta), 0) AS followersCount, " +
+            "COALESCE(u.following_count, 0) + COALESCE(SUM(s.following_delta), 0) AS followingCount " +
+            "FROM users u LEFT JOIN user_counter_shards s ON s.user_id = u.id " +
+            "WHERE u.id IN (:userIds) GROUP BY u.id", nativeQuery = true)
+    List<FollowCounts> findFollowCounts(Collection<Long> userIds);
+
+    // Drains every shard and folds the deltas into users in one statement
+    @Modifying
+    @Query(value = "WITH drained AS (" +
+            "DELETE FROM user_counter_shards RETURNING user_id, followers_delta, following_delta" +
+            "), totals AS (" +
+            "SELECT user_id, SUM(followers_delta) AS followers, SUM(following_delta) AS following " +
+            "FROM drained GROUP BY user_id" +
+            ") UPDATE users u SET " +
+            "followers_count = GREATEST(COALESCE(u.followers_count, 0) + t.followers, 0), " +
+            "following_count = GREATEST(COALESCE(u.following_count, 0) + t.following, 0) " +
+            "FROM totals t WHERE u.id = t.user_id", nativeQuery = true)
+    int compactCounterShards();
+
+    interface FollowCounts {
+        Long getUserId();
+
+        Integer getFollowersCount();
+
+        Integer getFollowingCount();
+    }
 }
@@ -3,17 +3,63 @@ package com.fitness.repository;
 import com.fitness.model.Workout;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WorkoutRepository extends JpaRepository<Workout, Long> {
+
+    // Loads the exercise list up front so the entity can be cached and read detached
+    @EntityGraph(attributePaths = "exercises")
+    Optional<Workout> findWithExercisesById(Long id);
+
+    @EntityGraph(attributePaths = "exercises")
+    List<Workout> findWithExercisesByIdIn(Collection<Long> ids);
+
     Page<Workout> findByUserId(Long userId, Pageable pageable);
 
     Page<Workout> findByUserIdAndIsPrivateFalse(Long userId, Pageable pageable);
 
     List<Workout> findByUserIdAndStartTimeBetween(Long userId, OffsetDateTime start, OffsetDateTime end);
+
+    @Query(value = "SELECT * FROM workouts WHERE user_id = :userId " +
+            "ORDER BY start_time DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Workout> findLatestByUserId(Long userId, int limit);
+
+    @Query(value = "SELECT * FROM workouts WHERE user_id = :userId " +
+            "AND (start_time, id) < (:startTime, :id) " +
+            "ORDER BY start_time DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Workout> findByUserIdBefore(Long userId, OffsetDateTime startTime, Long id, int limit);
+
+    @Modifying
+    @Query(value = "UPDATE workouts SET like_count = GREATEST(like_count + :delta, 0) WHERE id = :id", nativeQuery = true)
+    int adjustLikeCount(Long id, int delta);
+
+    @Modifying
+    @Query(value = "UPDATE workouts SET comment_count = GREATEST(comment_count + :delta, 0) WHERE id = :id",
+            nativeQuery = true)
+    int adjustCommentCount(Long id, int delta);
+
+    @Modifying
+    @Query(value = "UPDATE workouts t SET like_count = c.actual " +
+            "FROM (SELECT p.id, COUNT(l.id) AS actual FROM workouts p " +
+            "LEFT JOIN likes l ON l.parent_type = 'WORKOUT' AND l.parent_id = p.id GROUP BY p.id) c " +
+            "WHERE c.id = t.id AND t.like_count <> c.actual", nativeQuery = true)
+    int reconcileLikeCounts();
+
+    @Modifying
+    @Query(value = "UPDATE workouts t SET comment_count = c.actual " +
+            "FROM (SELECT p.id, COUNT(cm.id) AS actual FROM workouts p " +
+            "LEFT JOIN comments cm ON cm.parent_type = 'WORKOUT' AND cm.parent_id = p.id " +
+            "AND cm.deleted_at IS NULL GROUP BY p.id) c " +
+            "WHERE c.id = t.id AND t.comment_count <> c.actual", nativeQuery = true)
+    int reconcileCommentCounts();
 }
@@ -4,21 +4,115 @@ import com.fitness.model.ActivityFeed;
 import com.fitness.repository.ActivityFeedRepository;
 import com.fitness.repository.FollowRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ActivityFeedService {
 
+    private static final Comparator<ActivityFeed> NEWEST_FIRST = Comparator
+            .comparing(ActivityFeed::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ActivityFeed::getId, Comparator.reverseOrder());
+
     private final ActivityFeedRepository activityFeedRepository;
     private final FollowRepository followRepository;
+    private final FeedHub feedHub;
+
+    // Activity of authors at or above this follower count is not fanned out on write; it is
+    // pulled and merged into each follower's timeline at read time, for as long as it exists
+    @Value("${feed.fanout.celebrity-threshold:10000}")
+    private int celebrityThreshold;
+
+    @Value("${feed.fanout.backfill-size:50}")
+    private int backfillSize;
 
     public Slice<ActivityFeed> getFeed(Long userId, Pageable pageable) {
-        List<Long> followedIds = followRepository.findFolloweeIds(userId);
-        return activityFeedRepository.findFeedForUser(userId, followedIds, pageable);
+        int offset = (int) pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<ActivityFeed> merged = readTimeline(userId, null, null, offset + size + 1);
+
+        List<ActivityFeed> content = merged.stream().skip(offset).limit(size).toList();
+        return new SliceImpl<>(content, pageable, merged.size() > offset + size);
+    }
+
+    public List<ActivityFeed> getFeedBefore(Long userId, OffsetDateTime createdAt, Long id, int limit) {
+        return readTimeline(userId, createdAt, id, limit);
+    }
+
+    @Transactional
+    public ActivityFeed publish(ActivityFeed activity) {
+        ActivityFeed saved = activityFeedRepository.saveAndFlush(activity);
+        fanOut(List.of(saved.getId()));
+        return saved;
+    }
+
+    @Transactional
+    public void fanOut(Collection<Long> activityIds) {
+        if (!activityIds.isEmpty()) {
+            activityFeedRepository.fanOut(activityIds, celebrityThreshold);
+            feedHub.activitiesCreated(new ArrayList<>(activityIds));
+        }
+    }
+
+    @Transactional
+    public void onFollow(Long followerId, Long followeeId) {
+        activityFeedRepository.backfillTimeline(followerId, followeeId, backfillSize);
+        feedHub.followChanged(followerId, followeeId, true);
+    }
+
+    @Transactional
+    public void onUnfollow(Long followerId, Long followeeId) {
+        activityFeedRepository.removeFromTimeline(followerId, followeeId);
+        feedHub.followChanged(followerId, followeeId, false);
+    }
+
+    private List<ActivityFeed> readTimeline(Long userId, OffsetDateTime createdAt, Long id, int limit) {
+        List<ActivityFeed> timeline = createdAt == null
+                ? activityFeedRepository.findHomeTimeline(userId, limit)
+                : activityFeedRepository.findHomeTimelineBefore(userId, createdAt, id, limit);
+        List<Long> pulledFrom = followRepository.findFolloweeIdsWithPulledActivity(userId);
+        if (pulledFrom.isEmpty()) {
+            return timeline;
+        }
+
+        List<ActivityFeed> pulled = createdAt == null
+                ? activityFeedRepository.findPulledByOriginUsers(pulledFrom, Limit.of(limit))
+                : activityFeedRepository.findPulledByOriginUsersBefore(pulledFrom, createdAt, id, limit);
+        return merge(timeline, pulled, limit);
+    }
+
+    // Both inputs are newest-first; a follow backfills pulled activity into the timeline, so it
+    // can appear on both sides and duplicates are dropped by id
+    private static List<ActivityFeed> merge(List<ActivityFeed> left, List<ActivityFeed> right, int limit) {
+        List<ActivityFeed> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+        Set<Long> seen = new HashSet<>();
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < left.size() || j < right.size())) {
+            ActivityFeed next;
+            if (j >= right.size() || (i < left.size() && NEWEST_FIRST.compare(left.get(i), right.get(j)) <= 0)) {
+                next = left.get(i++);
+            } else {
+                next = right.get(j++);
+            }
+            if (seen.add(next.getId())) {
+                merged.add(next);
+            }
+        }
+        return merged;
     }
 }
@@ -1,6 +1,7 @@
 package com.fitness.service;
 
 import com.fitness.model.Comment;
+import com.fitness.model.OutboxEvent;
 import com.fitness.model.User;
 import com.fitness.repository.CommentRepository;
 import com.fitness.repository.UserRepository;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +20,8 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
+    private final CounterService counterService;
+    private final OutboxService outboxService;
 
     @Transactional
     public Comment addComment(Long userId, Comment.ParentType parentType, Long parentId, String content) {
@@ -31,7 +35,10 @@ public class CommentService {
                 .content(content)
                 .build();
 
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        counterService.adjustCommentCount(parentType, parentId, 1);
+        outboxService.record(OutboxEvent.EventType.COMMENTED, userId, saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -43,11 +50,21 @@ public class CommentService {
             throw new RuntimeException("Not authorized to delete this comment");
         }
 
-        comment.setDeletedAt(OffsetDateTime.now());
-        commentRepository.save(comment);
+        if (commentRepository.softDelete(commentId) == 0) {
+            return;
+        }
+        counterService.adjustCommentCount(comment.getParentType(), comment.getParentId(), -1);
     }
 
     public Page<Comment> getComments(Comment.ParentType parentType, Long parentId, Pageable pageable) {
         return commentRepository.findByParentTypeAndParentIdAndDeletedAtIsNull(parentType, parentId, pageable);
     }
+
+    public List<Comment> getCommentsBefore(Comment.ParentType parentType, Long parentId, OffsetDateTime createdAt,
+            Long id, int limit) {
+        if (createdAt == null) {
+            return commentRepository.findLatestByParent(parentType.name(), parentId, limit);
+        }
+        return commentRepository.findByParentBefore(parentType.name(), parentId, createdAt, id, limit);
+    }
 }
@@ -0,0 +1,67 @@
+package com.fitness.service;
+
+import com.fitness.config.CacheConfig;
+import com.fitness.model.Comment;
+import com.fitness.model.Like;
+import com.fitness.repository.RoutineRepository;
+import com.fitness.repository.WorkoutRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CounterService {
+
+    private final WorkoutRepository workoutRepository;
+    private final RoutineRepository routineRepository;
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.WORKOUTS, key = "#parentId",
+                    condition = "#parentType.name() == 'WORKOUT'"),
+            @CacheEvict(cacheNames = CacheConfig.ROUTINES, key = "#parentId",
+                    condition = "#parentType.name() == 'ROUTINE'")
+    })
+    public void adjustLikeCount(Like.ParentType parentType, Long parentId, int delta) {
+        switch (parentType) {
+            case WORKOUT -> workoutRepository.adjustLikeCount(parentId, delta);
+            case ROUTINE -> routineRepository.adjustLikeCount(parentId, delta);
+            default -> {
+                // comments do not keep a like counter
+            }
+        }
+    }
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.WORKOUTS, key = "#parentId",
+                    condition = "#parentType.name() == 'WORKOUT'"),
+            @CacheEvict(cacheNames = CacheConfig.ROUTINES, key = "#parentId",
+                    condition = "#parentType.name() == 'ROUTINE'")
+    })
+    public void adjustCommentCount(Comment.ParentType parentType, Long parentId, int delta) {
+        switch (parentType) {
+            case WORKOUT -> workoutRepository.adjustCommentCount(parentId, delta);
+            case ROUTINE -> routineRepository.adjustCommentCount(parentId, delta);
+        }
+    }
+
+    // Repairs counters that drifted, e.g. from rows removed by cascading deletes
+    @Scheduled(cron = "${counters.reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public void reconcileCounters() {
+        int repaired = workoutRepository.reconcileLikeCounts()
+                + workoutRepository.reconcileCommentCounts()
+                + routineRepository.reconcileLikeCounts()
+                + routineRepository.reconcileCommentCounts();
+        if (repaired > 0) {
+            log.info("Repaired {} drifted like/comment counters", repaired);
+        }
+    }
+}
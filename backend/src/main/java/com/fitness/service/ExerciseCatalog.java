@@ -0,0 +1,279 @@
+package com.fitness.service;
+
+import com.fitness.model.Exercise;
+import com.fitness.repository.ExerciseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-mostly in-process copy of the exercise table with a trigram index over names.
+ * Snapshots are immutable and swapped atomically, so readers never lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExerciseCatalog {
+
+    private static final Comparator<Exercise> BY_NAME =
+            Comparator.comparing(Exercise::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(Exercise::getId);
+
+    // Share of the query's trigrams a name must contain to count as a fuzzy match
+    private static final double MIN_TRIGRAM_OVERLAP = 0.4;
+
+    private static final int[] NO_DOCS = new int[0];
+
+    private final ExerciseRepository exerciseRepository;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${exercises.catalog.refresh-interval:30000}",
+            initialDelayString = "${exercises.catalog.refresh-interval:30000}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null || !current.fingerprint().equals(exerciseRepository.fingerprint())) {
+            refresh();
+        }
+    }
+
+    // A lock rather than synchronized: a monitor held across JDBC calls pins virtual threads
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            String fingerprint = exerciseRepository.fingerprint();
+            snapshot = Snapshot.build(exerciseRepository.findAll(), fingerprint);
+            log.info("Loaded exercise catalog with {} exercises", snapshot.exercises().size());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public Optional<Exercise> get(Long id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    // Exact name match ignoring case and punctuation; duplicates resolve to the lowest id
+    public Optional<Exercise> findByName(String name) {
+        return Optional.ofNullable(current().byName().get(normalize(name)));
+    }
+
+    public Map<Long, Exercise> getAll(Collection<Long> ids) {
+        Map<Long, Exercise> byId = current().byId();
+        Map<Long, Exercise> found = new HashMap<>();
+        for (Long id : ids) {
+            Exercise exercise = byId.get(id);
+            if (exercise != null) {
+                found.put(id, exercise);
+            }
+        }
+        return found;
+    }
+
+    public List<Exercise> search(String query, Exercise.ExerciseCategory category, int limit) {
+        Snapshot current = current();
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return current.exercises().stream()
+                    .filter(exercise -> category == null || exercise.getCategory() == category)
+                    .limit(limit)
+                    .toList();
+        }
+
+        Set<String> queryGrams = trigrams(normalized);
+        Map<Integer, Integer> hits = new HashMap<>();
+        for (String gram : queryGrams) {
+            for (int doc : current.index().getOrDefault(gram, NO_DOCS)) {
+                hits.merge(doc, 1, Integer::sum);
+            }
+        }
+        int minShared = (int) Math.ceil(queryGrams.size() * MIN_TRIGRAM_OVERLAP);
+
+        // Only fuzzy candidates and names holding every trigram a substring match implies are scored
+        Set<Integer> candidates = new HashSet<>();
+        hits.forEach((doc, shared) -> {
+            if (shared >= minShared) {
+                candidates.add(doc);
+            }
+        });
+        for (int doc : intersect(current.index(), substringGrams(normalized))) {
+            candidates.add(doc);
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int doc : candidates) {
+            Exercise exercise = current.exercises().get(doc);
+            if (category != null && exercise.getCategory() != category) {
+                continue;
+            }
+            String name = current.names()[doc];
+            int shared = hits.getOrDefault(doc, 0);
+            boolean substring = name.contains(normalized);
+            if (!substring && shared < minShared) {
+                continue;
+            }
+            matches.add(new Match(exercise, score(normalized, name, substring, shared,
+                    queryGrams.size(), current.gramCounts()[doc])));
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(Match::score).reversed()
+                        .thenComparing(Match::exercise, BY_NAME))
+                .limit(limit)
+                .map(Match::exercise)
+                .toList();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static double score(String query, String name, boolean substring, int shared, int queryGrams,
+            int nameGrams) {
+        double score = 100.0 * shared / (queryGrams + nameGrams - shared);
+        if (name.equals(query)) {
+            score += 1000;
+        } else if (name.startsWith(query)) {
+            score += 500;
+        } else if (name.contains(" " + query)) {
+            score += 300;
+        } else if (substring) {
+            score += 200;
+        }
+        return score;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+    }
+
+    // Words are padded so short queries still produce a leading trigram ("  b", " be")
+    static Set<String> trigrams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Trigrams every name containing the query must have: each word's inner trigrams, plus the
+     * padded edges of words that the query itself bounds with a space. A lone word shorter than
+     * three letters has none, and is matched as a word prefix instead.
+     */
+    static Set<String> substringGrams(String normalized) {
+        String[] words = normalized.split(" ");
+        Set<String> grams = new HashSet<>();
+        for (int w = 0; w < words.length; w++) {
+            String word = words[w];
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                grams.add(word.substring(i, i + 3));
+            }
+            if (w > 0) {
+                grams.add(padded.substring(0, 3));
+                if (word.length() > 1) {
+                    grams.add(padded.substring(1, 4));
+                }
+            }
+            if (w < words.length - 1 && word.length() > 1) {
+                grams.add(padded.substring(padded.length() - 3));
+            }
+        }
+        if (grams.isEmpty()) {
+            String padded = "  " + words[0] + " ";
+            grams.add(padded.substring(words[0].length() - 1, words[0].length() + 2));
+        }
+        return grams;
+    }
+
+    // Postings are sorted by doc, so they intersect by merging, starting from the shortest list
+    private static int[] intersect(Map<String, int[]> index, Set<String> grams) {
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : grams) {
+            int[] docs = index.get(gram);
+            if (docs == null) {
+                return NO_DOCS;
+            }
+            lists.add(docs);
+        }
+        lists.sort(Comparator.comparingInt(docs -> docs.length));
+        int[] result = lists.get(0);
+        for (int l = 1; l < lists.size() && result.length > 0; l++) {
+            int[] other = lists.get(l);
+            int[] merged = new int[result.length];
+            int size = 0;
+            for (int i = 0, j = 0; i < result.length && j < other.length; ) {
+                if (result[i] == other[j]) {
+                    merged[size++] = result[i];
+                    i++;
+                    j++;
+                } else if (result[i] < other[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            result = Arrays.copyOf(merged, size);
+        }
+        return result;
+    }
+
+    private record Match(Exercise exercise, double score) {
+    }
+
+    private record Snapshot(List<Exercise> exercises, Map<Long, Exercise> byId, Map<String, Exercise> byName,
+            String[] names, int[] gramCounts, Map<String, int[]> index, String fingerprint) {
+
+        static Snapshot build(List<Exercise> loaded, String fingerprint) {
+            List<Exercise> exercises = loaded.stream().sorted(BY_NAME).toList();
+            String[] names = new String[exercises.size()];
+            int[] gramCounts = new int[exercises.size()];
+            Map<String, List<Integer>> postings = new HashMap<>();
+            for (int doc = 0; doc < exercises.size(); doc++) {
+                names[doc] = normalize(exercises.get(doc).getName());
+                Set<String> grams = trigrams(names[doc]);
+                gramCounts[doc] = grams.size();
+                for (String gram : grams) {
+                    postings.computeIfAbsent(gram, key -> new ArrayList<>()).add(doc);
+                }
+            }
+            Map<String, int[]> index = postings.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+                            entry -> entry.getValue().stream().mapToInt(Integer::intValue).toArray()));
+            Map<Long, Exercise> byId = exercises.stream()
+                    .collect(Collectors.toUnmodifiableMap(Exercise::getId, Function.identity()));
+            Map<String, Exercise> byName = new HashMap<>();
+            for (int doc = 0; doc < exercises.size(); doc++) {
+                byName.merge(names[doc], exercises.get(doc),
+                        (first, other) -> first.getId() <= other.getId() ? first : other);
+            }
+            return new Snapshot(exercises, byId, Map.copyOf(byName), names, gramCounts, index, fingerprint);
+        }
+    }
+}
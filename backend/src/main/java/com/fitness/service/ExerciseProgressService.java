@@ -0,0 +1,243 @@
+package com.fitness.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Exercise progress charts served from memory. A user's whole set history is loaded into one
+ * {@link SetSeries} per exercise on first use and kept current by applying each committed
+ * workout change to the loaded series, so charts never touch the database once warm.
+ * <p>
+ * Changes made by other instances are picked up when the entry expires.
+ */
+@Service
+public class ExerciseProgressService {
+
+    private static final String HISTORY_SQL = "SELECT we.exercise_id, w.id, w.start_time, we.weight_kg, we.reps, " +
+            "we.sets FROM workouts w JOIN workout_exercises we ON we.workout_id = w.id " +
+            "WHERE w.user_id = ? ORDER BY w.start_time, w.id, we.order_index";
+
+    private static final int DEFAULT_BUCKETS = 100;
+    private static final int MAX_BUCKETS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AsyncCache<Long, UserSeries> cache;
+
+    @Value("${progress.fetch-size:1000}")
+    private int fetchSize;
+
+    // Weighed by point count, so one heavy user costs as much as many light ones
+    public ExerciseProgressService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry, @Value("${progress.max-points:2000000}") long maxPoints,
+            @Value("${progress.ttl:5m}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxPoints)
+                .weigher((Long userId, UserSeries series) -> Math.max(1, series.points()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "exercise-progress");
+    }
+
+    public record ProgressPoint(OffsetDateTime bucketStart, double min, double max, double avg, int count) {
+    }
+
+    /**
+     * Splits [from, to) into equal buckets and returns the non-empty ones. Without a range the
+     * chart covers the exercise's whole history.
+     */
+    public List<ProgressPoint> getProgress(Long userId, Long exerciseId, SetSeries.Metric metric,
+            OffsetDateTime from, OffsetDateTime to, Integer buckets) {
+        int bucketCount = buckets != null ? buckets : DEFAULT_BUCKETS;
+        if (bucketCount < 1 || bucketCount > MAX_BUCKETS) {
+            throw new RuntimeException("buckets must be between 1 and " + MAX_BUCKETS);
+        }
+        SetSeries series = series(userId).exercises.get(exerciseId);
+        if (series == null || series.size() == 0) {
+            return List.of();
+        }
+        long start = from != null ? from.toInstant().toEpochMilli() : series.firstTime();
+        long end = to != null ? to.toInstant().toEpochMilli()
+                : Math.max(System.currentTimeMillis(), series.lastTime() + 1);
+        if (start >= end) {
+            throw new RuntimeException("from must be before to");
+        }
+
+        float[] min = new float[bucketCount];
+        float[] max = new float[bucketCount];
+        double[] sum = new double[bucketCount];
+        int[] count = new int[bucketCount];
+        series.aggregate(start, end, metric, min, max, sum, count);
+
+        List<ProgressPoint> points = new ArrayList<>();
+        double width = (double) (end - start) / bucketCount;
+        for (int i = 0; i < bucketCount; i++) {
+            if (count[i] > 0) {
+                OffsetDateTime bucketStart = Instant.ofEpochMilli(start + (long) Math.ceil(i * width))
+                        .atOffset(ZoneOffset.UTC);
+                points.add(new ProgressPoint(bucketStart, min[i], max[i], sum[i] / count[i], count[i]));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Adds a new workout to the user's series once the surrounding transaction commits.
+     */
+    public void workoutSaved(Long userId, Long workoutId, OffsetDateTime startTime,
+            Collection<WorkoutService.WorkoutExerciseInput> exercises) {
+        if (exercises == null || exercises.isEmpty()) {
+            return;
+        }
+        long time = startTime.toInstant().toEpochMilli();
+        afterCommit(userId, loaded -> {
+            Map<Long, List<WorkoutService.WorkoutExerciseInput>> byExercise = new HashMap<>();
+            for (WorkoutService.WorkoutExerciseInput exercise : exercises) {
+                byExercise.computeIfAbsent(exercise.exerciseId(), id -> new ArrayList<>()).add(exercise);
+            }
+            byExercise.forEach((exerciseId, entries) -> {
+                float[] weights = new float[entries.size()];
+                int[] reps = new int[entries.size()];
+                int[] sets = new int[entries.size()];
+                for (int i = 0; i < entries.size(); i++) {
+                    WorkoutService.WorkoutExerciseInput entry = entries.get(i);
+                    weights[i] = weight(entry.weightKg());
+                    reps[i] = count(entry.reps());
+                    sets[i] = count(entry.sets());
+                }
+                loaded.exercises.computeIfAbsent(exerciseId, id -> new SetSeries())
+                        .addWorkout(time, workoutId, weights, reps, sets);
+            });
+        });
+    }
+
+    /**
+     * Removes a deleted workout from the user's series once the surrounding transaction commits.
+     */
+    public void workoutDeleted(Long userId, Long workoutId, OffsetDateTime startTime, Collection<Long> exerciseIds) {
+        long time = startTime.toInstant().toEpochMilli();
+        afterCommit(userId, loaded -> {
+            for (Long exerciseId : exerciseIds) {
+                SetSeries series = loaded.exercises.get(exerciseId);
+                if (series != null) {
+                    series.removeWorkout(time, workoutId);
+                }
+            }
+        });
+    }
+
+    // Only users already in memory are updated; a load still in flight gets the change when it
+    // completes, and adds are idempotent in case the load already saw the committed rows
+    private void afterCommit(Long userId, Consumer<UserSeries> change) {
+        Runnable apply = () -> {
+            CompletableFuture<UserSeries> loaded = cache.getIfPresent(userId);
+            if (loaded != null) {
+                loaded.thenAccept(change);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    // Concurrent first requests for a user share one load
+    private UserSeries series(Long userId) {
+        CompletableFuture<UserSeries> created = new CompletableFuture<>();
+        CompletableFuture<UserSeries> existing = cache.asMap().putIfAbsent(userId, created);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            UserSeries loaded = load(userId);
+            created.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            cache.asMap().remove(userId, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Rows arrive in start time order, so every series is built by appending
+    private UserSeries load(Long userId) {
+        UserSeries loaded = new UserSeries();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(HISTORY_SQL);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, userId);
+            return statement;
+        }, rs -> {
+            loaded.exercises.computeIfAbsent(rs.getLong("exercise_id"), id -> new SetSeries()).append(
+                    rs.getObject("start_time", OffsetDateTime.class).toInstant().toEpochMilli(),
+                    rs.getLong("id"),
+                    weight(rs.getBigDecimal("weight_kg")),
+                    count(rs.getObject("reps", Integer.class)),
+                    count(rs.getObject("sets", Integer.class)));
+        }));
+        return loaded;
+    }
+
+    private static float weight(BigDecimal weightKg) {
+        return weightKg != null ? weightKg.floatValue() : SetSeries.NO_WEIGHT;
+    }
+
+    private static int count(Integer value) {
+        return value != null ? value : SetSeries.NO_COUNT;
+    }
+
+    private static UserSeries join(CompletableFuture<UserSeries> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class UserSeries {
+
+        private final Map<Long, SetSeries> exercises = new ConcurrentHashMap<>();
+
+        int points() {
+            return exercises.values().stream().mapToInt(SetSeries::size).sum();
+        }
+    }
+}
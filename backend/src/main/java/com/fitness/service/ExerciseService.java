@@ -3,30 +3,57 @@ package com.fitness.service;
 import com.fitness.model.Exercise;
 import com.fitness.repository.ExerciseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ExerciseService {
 
     private final ExerciseRepository exerciseRepository;
+    private final ExerciseCatalog exerciseCatalog;
+
+    @Value("${exercises.search.max-results:50}")
+    private int maxSearchResults;
 
     public List<Exercise> getAllExercises() {
-        return exerciseRepository.findAll();
+        return exerciseCatalog.search(null, null, Integer.MAX_VALUE);
     }
 
     public List<Exercise> searchExercises(String query) {
-        return exerciseRepository.findByNameContainingIgnoreCase(query);
+        return searchExercises(query, null, null);
+    }
+
+    public List<Exercise> searchExercises(String query, Exercise.ExerciseCategory category, Integer limit) {
+        int size = limit != null && limit > 0 ? Math.min(limit, maxSearchResults) : maxSearchResults;
+        return exerciseCatalog.search(query, category, size);
     }
 
     public List<Exercise> getExercisesByCategory(Exercise.ExerciseCategory category) {
-        return exerciseRepository.findByCategory(category);
+        return exerciseCatalog.search(null, category, Integer.MAX_VALUE);
+    }
+
+    public Map<Long, Exercise> getExercisesByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Exercise> exercises = new HashMap<>(exerciseCatalog.getAll(ids));
+        if (exercises.size() < ids.size()) {
+            // Rows written since the last catalog refresh
+            List<Long> missing = ids.stream().filter(id -> !exercises.containsKey(id)).toList();
+            exerciseRepository.findAllById(missing).forEach(exercise -> exercises.put(exercise.getId(), exercise));
+        }
+        return exercises;
     }
 
     public Exercise getExerciseById(Long id) {
-        return exerciseRepository.findById(id)
+        return exerciseCatalog.get(id)
+                .or(() -> exerciseRepository.findById(id))
                 .orElseThrow(() -> new RuntimeException("Exercise not found"));
     }
 }
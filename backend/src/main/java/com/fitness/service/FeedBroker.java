@@ -0,0 +1,25 @@
+package com.fitness.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries feed events to the {@link FeedHub} of every node serving subscriptions. The default
+ * broker hands them straight to the local hub; with {@code feed.broker.type=redis} they are also
+ * relayed to the other nodes over Redis pub/sub.
+ */
+public interface FeedBroker {
+
+    void publish(Event event);
+
+    void subscribe(Consumer<Event> listener);
+
+    sealed interface Event permits ActivitiesCreated, FollowChanged {
+    }
+
+    record ActivitiesCreated(List<Long> activityIds) implements Event {
+    }
+
+    record FollowChanged(Long followerId, Long followeeId, boolean following) implements Event {
+    }
+}
@@ -0,0 +1,238 @@
+package com.fitness.service;
+
+import com.fitness.model.ActivityFeed;
+import com.fitness.repository.ActivityFeedRepository;
+import com.fitness.repository.FollowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes new activity to feedUpdated subscriptions. Connections are indexed by their own user
+ * and by every user they follow, so an activity reaches the origin user's connections and,
+ * unless private, those of followers who are online, without looking at anyone else.
+ * <p>
+ * The index is concurrent: registering takes no global lock and delivery reads it without
+ * locking. Each connection buffers at most {@code feed.subscription.buffer-size} items; a
+ * client that falls behind loses the oldest and can fill the gap by reading {@code feed}.
+ * <p>
+ * Events are applied on one delivery thread behind a bounded queue, so a writer only pays for
+ * the hand-off however many followers are online. Events that do not fit are dropped.
+ */
+@Slf4j
+@Service
+public class FeedHub implements DisposableBean {
+
+    private final ActivityFeedRepository activityFeedRepository;
+    private final FollowRepository followRepository;
+    private final FeedBroker feedBroker;
+    private final Map<Long, Set<Connection>> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Connection>> byFollowee = new ConcurrentHashMap<>();
+    private final Counter droppedCounter;
+    private final Counter droppedEventCounter;
+    private final int bufferSize;
+    private final ThreadPoolTaskExecutor deliveryExecutor;
+
+    public FeedHub(ActivityFeedRepository activityFeedRepository, FollowRepository followRepository,
+            FeedBroker feedBroker, MeterRegistry meterRegistry,
+            @Value("${feed.subscription.buffer-size:64}") int bufferSize,
+            @Value("${feed.delivery.queue-capacity:10000}") int deliveryQueueCapacity) {
+        this.activityFeedRepository = activityFeedRepository;
+        this.followRepository = followRepository;
+        this.feedBroker = feedBroker;
+        this.bufferSize = bufferSize;
+        this.droppedCounter = meterRegistry.counter("feed.subscription.dropped");
+        this.droppedEventCounter = meterRegistry.counter("feed.delivery.dropped");
+        // A single thread keeps follow changes and activities in the order they were published
+        this.deliveryExecutor = new ThreadPoolTaskExecutor();
+        deliveryExecutor.setCorePoolSize(1);
+        deliveryExecutor.setMaxPoolSize(1);
+        deliveryExecutor.setQueueCapacity(deliveryQueueCapacity);
+        deliveryExecutor.setThreadNamePrefix("feed-delivery-");
+        deliveryExecutor.initialize();
+        Gauge.builder("feed.subscription.users", byUser, Map::size).register(meterRegistry);
+        Gauge.builder("feed.delivery.queued", deliveryExecutor,
+                executor -> executor.getThreadPoolExecutor().getQueue().size()).register(meterRegistry);
+        feedBroker.subscribe(this::enqueue);
+    }
+
+    @Override
+    public void destroy() {
+        deliveryExecutor.shutdown();
+    }
+
+    private static final class Connection {
+
+        final Long userId;
+        final Set<Long> followees = ConcurrentHashMap.newKeySet();
+        // Emissions are serialized by synchronizing on the connection
+        final Sinks.Many<ActivityFeed> sink = Sinks.many().multicast().directBestEffort();
+        volatile boolean closed;
+
+        Connection(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    public Flux<ActivityFeed> updates(Long userId) {
+        return Flux.defer(() -> {
+            Connection connection = new Connection(userId);
+            register(connection);
+            return connection.sink.asFlux()
+                    .onBackpressureBuffer(bufferSize, dropped -> droppedCounter.increment(),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> unregister(connection));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Announces new activity to every node once the surrounding transaction commits.
+     */
+    public void activitiesCreated(List<Long> activityIds) {
+        afterCommit(() -> feedBroker.publish(new FeedBroker.ActivitiesCreated(activityIds)));
+    }
+
+    public void followChanged(Long followerId, Long followeeId, boolean following) {
+        afterCommit(() -> feedBroker.publish(new FeedBroker.FollowChanged(followerId, followeeId, following)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Called on the publishing thread, which with the local broker is the writer's own
+    private void enqueue(FeedBroker.Event event) {
+        if (byUser.isEmpty()) {
+            return;
+        }
+        try {
+            deliveryExecutor.execute(() -> apply(event));
+        } catch (TaskRejectedException e) {
+            droppedEventCounter.increment();
+        }
+    }
+
+    private void apply(FeedBroker.Event event) {
+        try {
+            if (event instanceof FeedBroker.ActivitiesCreated created) {
+                deliver(created.activityIds());
+            } else if (event instanceof FeedBroker.FollowChanged change) {
+                follow(change);
+            }
+        } catch (RuntimeException e) {
+            // Delivery is best effort; the activity is committed and shows up in the next feed read
+            log.warn("Could not apply feed event {}", event, e);
+        }
+    }
+
+    private void deliver(List<Long> activityIds) {
+        List<ActivityFeed> activities = activityFeedRepository.findAllById(activityIds);
+        activities.sort(Comparator.comparing(ActivityFeed::getId));
+        for (ActivityFeed activity : activities) {
+            Long originUserId = originUserId(activity);
+            emit(byUser.get(originUserId), activity);
+            if (activity.getVisibility() != ActivityFeed.Visibility.PRIVATE) {
+                emit(byFollowee.get(originUserId), activity);
+            }
+        }
+    }
+
+    private static void emit(Set<Connection> connections, ActivityFeed activity) {
+        if (connections == null) {
+            return;
+        }
+        for (Connection connection : connections) {
+            synchronized (connection) {
+                connection.sink.tryEmitNext(activity);
+            }
+        }
+    }
+
+    private void follow(FeedBroker.FollowChanged change) {
+        Set<Connection> connections = byUser.get(change.followerId());
+        if (connections == null) {
+            return;
+        }
+        for (Connection connection : connections) {
+            if (change.following()) {
+                connection.followees.add(change.followeeId());
+                index(byFollowee, change.followeeId(), connection);
+                // Lost a race with unregister, which may have missed the new followee
+                if (connection.closed) {
+                    unindex(byFollowee, change.followeeId(), connection);
+                }
+            } else {
+                connection.followees.remove(change.followeeId());
+                unindex(byFollowee, change.followeeId(), connection);
+            }
+        }
+    }
+
+    // Indexed by user first, so a follow change that commits while the followees load still applies
+    private void register(Connection connection) {
+        index(byUser, connection.userId, connection);
+        for (Long followeeId : followRepository.findFolloweeIds(connection.userId)) {
+            connection.followees.add(followeeId);
+            index(byFollowee, followeeId, connection);
+        }
+    }
+
+    private void unregister(Connection connection) {
+        connection.closed = true;
+        unindex(byUser, connection.userId, connection);
+        for (Long followeeId : connection.followees) {
+            unindex(byFollowee, followeeId, connection);
+        }
+    }
+
+    private static void index(Map<Long, Set<Connection>> index, Long key, Connection connection) {
+        index.compute(key, (id, connections) -> {
+            Set<Connection> set = connections != null ? connections : ConcurrentHashMap.newKeySet();
+            set.add(connection);
+            return set;
+        });
+    }
+
+    private static void unindex(Map<Long, Set<Connection>> index, Long key, Connection connection) {
+        index.computeIfPresent(key, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    // Reads the foreign key off the lazy association without loading the user
+    private static Long originUserId(ActivityFeed activity) {
+        if (activity.getOriginUser() instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return activity.getOriginUser().getId();
+    }
+}
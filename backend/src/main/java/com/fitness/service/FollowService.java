@@ -1,61 +1,98 @@
 package com.fitness.service;
 
+import com.fitness.config.CacheConfig;
 import com.fitness.model.Follow;
-import com.fitness.model.User;
+import com.fitness.model.OutboxEvent;
 import com.fitness.repository.FollowRepository;
 import com.fitness.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class FollowService {
 
     private final FollowRepository followRepository;
     private final UserRepository userRepository;
+    private final ActivityFeedService activityFeedService;
+    private final OutboxService outboxService;
+
+    // Deltas are spread over this many rows per user so concurrent follows of one
+    // account rarely wait on the same row lock
+    @Value("${follow.counter-shards:16}")
+    private int counterShards;
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followerId"),
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followeeId")
+    })
     public void followUser(Long followerId, Long followeeId) {
         if (followerId.equals(followeeId)) {
             throw new RuntimeException("Cannot follow yourself");
         }
+        if (!userRepository.existsById(followeeId)) {
+            throw new RuntimeException("User not found");
+        }
         if (followRepository.existsByFollowerIdAndFolloweeId(followerId, followeeId)) {
             throw new RuntimeException("Already following");
         }
 
-        User follower = userRepository.findById(followerId).orElseThrow();
-        User followee = userRepository.findById(followeeId).orElseThrow();
-
         Follow follow = Follow.builder()
-                .follower(follower)
-                .followee(followee)
+                .follower(userRepository.getReferenceById(followerId))
+                .followee(userRepository.getReferenceById(followeeId))
                 .build();
 
-        followRepository.save(follow);
-
-        follower.setFollowingCount(follower.getFollowingCount() + 1);
-        followee.setFollowersCount(followee.getFollowersCount() + 1);
+        Follow saved = followRepository.save(follow);
+        adjustFollowCounts(followerId, followeeId, 1);
+        outboxService.record(OutboxEvent.EventType.USER_FOLLOWED, followerId, saved.getId());
 
-        userRepository.save(follower);
-        userRepository.save(followee);
+        activityFeedService.onFollow(followerId, followeeId);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followerId"),
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#followeeId")
+    })
     public void unfollowUser(Long followerId, Long followeeId) {
-        if (!followRepository.existsByFollowerIdAndFolloweeId(followerId, followeeId)) {
+        if (followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId) == 0) {
             throw new RuntimeException("Not following");
         }
 
-        followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId);
+        adjustFollowCounts(followerId, followeeId, -1);
 
-        User follower = userRepository.findById(followerId).orElseThrow();
-        User followee = userRepository.findById(followeeId).orElseThrow();
+        activityFeedService.onUnfollow(followerId, followeeId);
+    }
 
-        follower.setFollowingCount(Math.max(0, follower.getFollowingCount() - 1));
-        followee.setFollowersCount(Math.max(0, followee.getFollowersCount() - 1));
+    public Map<Long, UserRepository.FollowCounts> getFollowCounts(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findFollowCounts(userIds).stream()
+                .collect(Collectors.toMap(UserRepository.FollowCounts::getUserId, Function.identity()));
+    }
+
+    @Scheduled(fixedDelayString = "${follow.counter-compaction-interval:60000}")
+    @Transactional
+    public void compactFollowCounts() {
+        userRepository.compactCounterShards();
+    }
 
-        userRepository.save(follower);
-        userRepository.save(followee);
+    private void adjustFollowCounts(Long followerId, Long followeeId, int delta) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        userRepository.addCounterDelta(followerId, random.nextInt(counterShards), 0, delta);
+        userRepository.addCounterDelta(followeeId, random.nextInt(counterShards), delta, 0);
     }
 }
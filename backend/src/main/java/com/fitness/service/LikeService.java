@@ -1,6 +1,7 @@
 package com.fitness.service;
 
 import com.fitness.model.Like;
+import com.fitness.model.OutboxEvent;
 import com.fitness.model.User;
 import com.fitness.repository.LikeRepository;
 import com.fitness.repository.UserRepository;
@@ -8,17 +9,25 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class LikeService {
 
     private final LikeRepository likeRepository;
     private final UserRepository userRepository;
+    private final CounterService counterService;
+    private final OutboxService outboxService;
 
     @Transactional
     public boolean toggleLike(Long userId, Like.ParentType parentType, Long parentId) {
         if (likeRepository.existsByUserIdAndParentTypeAndParentId(userId, parentType, parentId)) {
-            likeRepository.deleteByUserIdAndParentTypeAndParentId(userId, parentType, parentId);
+            if (likeRepository.deleteByUserIdAndParentTypeAndParentId(userId, parentType, parentId) > 0) {
+                counterService.adjustLikeCount(parentType, parentId, -1);
+            }
             return false; // unliked
         } else {
             User user = userRepository.findById(userId)
@@ -30,7 +39,9 @@ public class LikeService {
                     .parentId(parentId)
                     .build();
 
-            likeRepository.save(like);
+            Like saved = likeRepository.save(like);
+            counterService.adjustLikeCount(parentType, parentId, 1);
+            outboxService.record(OutboxEvent.EventType.LIKED, userId, saved.getId());
             return true; // liked
         }
     }
@@ -42,4 +53,11 @@ public class LikeService {
     public boolean isLiked(Long userId, Like.ParentType parentType, Long parentId) {
         return likeRepository.existsByUserIdAndParentTypeAndParentId(userId, parentType, parentId);
     }
+
+    public Set<Long> getLikedParentIds(Long userId, Like.ParentType parentType, Collection<Long> parentIds) {
+        if (parentIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(likeRepository.findLikedParentIds(userId, parentType, parentIds));
+    }
 }
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.time.Duration;
 import java.util.UUID;
@@ -20,8 +22,8 @@ public class MediaService {
     @Value("${spring.cloud.aws.s3.bucket:fitness-bucket}")
     private String bucketName;
 
-    public PresignedUrl presignUpload(String contentType, String folder) {
-        String key = folder + "/" + UUID.randomUUID().toString();
+    public PresignedUrl presignUpload(Long userId, String contentType, String folder) {
+        String key = uploadPrefix(userId) + folder + "/" + UUID.randomUUID().toString();
         URL url = s3Template.createSignedPutURL(bucketName, key, Duration.ofMinutes(15), null, contentType);
 
         // Construct public URL (assuming public read access or CloudFront)
@@ -30,6 +32,15 @@ public class MediaService {
         return new PresignedUrl(url.toString(), publicUrl, key);
     }
 
+    // Keys are namespaced per uploader, so a key sent back to the API can be checked for ownership
+    public String uploadPrefix(Long userId) {
+        return "users/" + userId + "/";
+    }
+
+    public InputStream openObject(String key) throws IOException {
+        return s3Template.download(bucketName, key).getInputStream();
+    }
+
     public record PresignedUrl(String putUrl, String publicUrl, String key) {
     }
 }
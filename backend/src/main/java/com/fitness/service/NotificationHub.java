@@ -0,0 +1,175 @@
+package com.fitness.service;
+
+import com.fitness.model.Notification;
+import com.fitness.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes new notifications and unread counts to the subscriptions of signed-in users.
+ * <p>
+ * A user with at least one open subscription has a channel, dropped again with the last
+ * subscription. A subscriber that stops reading keeps only its newest {@code buffer-size}
+ * notifications, and only the latest unread count. Counts are held in memory for connected
+ * users, recounted only when their notifications change and pushed only when they differ.
+ */
+@Slf4j
+@Service
+public class NotificationHub {
+
+    private final NotificationRepository notificationRepository;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final Counter droppedCounter;
+    private final int bufferSize;
+
+    public NotificationHub(NotificationRepository notificationRepository, MeterRegistry meterRegistry,
+            @Value("${notifications.subscription.buffer-size:64}") int bufferSize) {
+        this.notificationRepository = notificationRepository;
+        this.bufferSize = bufferSize;
+        this.droppedCounter = meterRegistry.counter("notifications.subscription.dropped");
+        Gauge.builder("notifications.subscription.users", channels, Map::size).register(meterRegistry);
+    }
+
+    private static final class Channel {
+
+        // Emissions are serialized by synchronizing on the channel
+        final Sinks.Many<Notification> notifications = Sinks.many().multicast().directBestEffort();
+        final Sinks.Many<Long> unreadCounts = Sinks.many().replay().latest();
+        final AtomicBoolean countLoaded = new AtomicBoolean();
+        long unreadCount = -1;
+        // Only changed inside ConcurrentHashMap.compute
+        int subscribers;
+    }
+
+    public Flux<Notification> notifications(Long userId) {
+        return Flux.defer(() -> {
+            Channel channel = acquire(userId);
+            return channel.notifications.asFlux()
+                    .onBackpressureBuffer(bufferSize, dropped -> droppedCounter.increment(),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> release(userId));
+        });
+    }
+
+    /**
+     * The current unread count, then every change to it.
+     */
+    public Flux<Long> unreadCounts(Long userId) {
+        return Flux.defer(() -> {
+            Channel channel = acquire(userId);
+            if (channel.countLoaded.compareAndSet(false, true)) {
+                Schedulers.boundedElastic().schedule(() -> recount(userId, channel));
+            }
+            return channel.unreadCounts.asFlux()
+                    .onBackpressureLatest()
+                    .doFinally(signal -> release(userId));
+        });
+    }
+
+    /**
+     * Delivers notifications once the surrounding transaction commits. Only users with an open
+     * subscription cost a query.
+     */
+    public void notificationsCreated(Map<Long, List<Long>> notificationIdsByUser) {
+        afterCommit(() -> publish(notificationIdsByUser));
+    }
+
+    /**
+     * Recounts a connected user's unread notifications once the surrounding transaction commits.
+     */
+    public void unreadCountChanged(Long userId) {
+        afterCommit(() -> recount(userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void publish(Map<Long, List<Long>> notificationIdsByUser) {
+        List<Long> ids = new ArrayList<>();
+        notificationIdsByUser.forEach((userId, userIds) -> {
+            if (channels.containsKey(userId)) {
+                ids.addAll(userIds);
+            }
+        });
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, Long> owners = new HashMap<>();
+            notificationIdsByUser.forEach((userId, userIds) -> userIds.forEach(id -> owners.put(id, userId)));
+            List<Notification> notifications = notificationRepository.findAllById(ids);
+            notifications.sort(Comparator.comparing(Notification::getId));
+            for (Notification notification : notifications) {
+                Long userId = owners.get(notification.getId());
+                Channel channel = channels.get(userId);
+                if (channel != null) {
+                    synchronized (channel) {
+                        channel.notifications.tryEmitNext(notification);
+                    }
+                }
+            }
+            notificationIdsByUser.keySet().forEach(this::recount);
+        } catch (RuntimeException e) {
+            // Delivery is best effort; the rows are committed and show up in the next query
+            log.warn("Could not push {} notifications", ids.size(), e);
+        }
+    }
+
+    private void recount(Long userId) {
+        Channel channel = channels.get(userId);
+        if (channel != null && channel.countLoaded.get()) {
+            recount(userId, channel);
+        }
+    }
+
+    // Holding the channel while counting keeps a slower, older count from overwriting a newer one
+    private void recount(Long userId, Channel channel) {
+        synchronized (channel) {
+            long count = notificationRepository.countByUserIdAndIsReadFalse(userId);
+            if (count != channel.unreadCount) {
+                channel.unreadCount = count;
+                channel.unreadCounts.tryEmitNext(count);
+            }
+        }
+    }
+
+    private Channel acquire(Long userId) {
+        return channels.compute(userId, (id, existing) -> {
+            Channel channel = existing != null ? existing : new Channel();
+            channel.subscribers++;
+            return channel;
+        });
+    }
+
+    private void release(Long userId) {
+        channels.computeIfPresent(userId, (id, channel) -> --channel.subscribers == 0 ? null : channel);
+    }
+}
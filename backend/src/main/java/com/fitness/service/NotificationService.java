@@ -0,0 +1,170 @@
+package com.fitness.service;
+
+import com.fitness.config.CacheConfig;
+import com.fitness.model.Notification;
+import com.fitness.model.OutboxEvent;
+import com.fitness.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes notifications for outbox events and serves them to their recipients.
+ * <p>
+ * Likes, comments and follows that fall into the same {@code notifications.group-window}
+ * bucket fold into one row per group: a new actor becomes the row's latest actor, raises its
+ * count and turns it unread again. Unread counts are cached per user; the cache manager is
+ * transaction aware, so evictions land once the write that caused them has committed.
+ */
+@Service
+public class NotificationService {
+
+    // Past this many actors in one group, a returning actor may be counted again
+    private static final int MAX_TRACKED_ACTORS = 100;
+
+    private static final String INSERT = "INSERT INTO notifications AS n " +
+            "(user_id, type, payload, is_read, group_key, actor_count, actor_ids, created_at, updated_at) ";
+
+    // An actor already in the group changes nothing, so repeats neither count nor re-notify
+    private static final String FOLD = " ON CONFLICT (user_id, group_key) DO UPDATE SET " +
+            "payload = EXCLUDED.payload, " +
+            "actor_count = n.actor_count + 1, " +
+            "actor_ids = (EXCLUDED.actor_ids || n.actor_ids)[1:" + MAX_TRACKED_ACTORS + "], " +
+            "is_read = FALSE, " +
+            "updated_at = GREATEST(n.updated_at, EXCLUDED.updated_at) " +
+            "WHERE NOT EXCLUDED.actor_ids[1] = ANY(n.actor_ids)";
+
+    // Every statement binds (group bucket, created_at, updated_at, subject id)
+    private static final Map<OutboxEvent.EventType, String> NOTIFICATION_SQL = Map.of(
+            OutboxEvent.EventType.USER_FOLLOWED,
+            INSERT +
+                    "SELECT f.followee_id, 'NEW_FOLLOW', jsonb_build_object('actorId', f.follower_id), FALSE, " +
+                    "'NEW_FOLLOW:' || ?, 1, ARRAY[f.follower_id], ?, ? " +
+                    "FROM follows f WHERE f.id = ?" + FOLD,
+            OutboxEvent.EventType.LIKED,
+            INSERT +
+                    "SELECT parent.owner_id, 'NEW_LIKE', jsonb_build_object('actorId', l.user_id, " +
+                    "'parentType', l.parent_type, 'parentId', l.parent_id), FALSE, " +
+                    "'NEW_LIKE:' || l.parent_type || ':' || l.parent_id || ':' || ?, 1, ARRAY[l.user_id], ?, ? " +
+                    "FROM likes l JOIN LATERAL (" +
+                    "SELECT user_id AS owner_id FROM workouts WHERE l.parent_type = 'WORKOUT' AND id = l.parent_id " +
+                    "UNION ALL SELECT owner_id FROM routines WHERE l.parent_type = 'ROUTINE' AND id = l.parent_id " +
+                    "UNION ALL SELECT user_id FROM comments WHERE l.parent_type = 'COMMENT' AND id = l.parent_id" +
+                    ") parent ON TRUE " +
+                    "WHERE l.id = ? AND parent.owner_id <> l.user_id" + FOLD,
+            OutboxEvent.EventType.COMMENTED,
+            INSERT +
+                    "SELECT parent.owner_id, 'NEW_COMMENT', jsonb_build_object('actorId', c.user_id, " +
+                    "'commentId', c.id, 'parentType', c.parent_type, 'parentId', c.parent_id), FALSE, " +
+                    "'NEW_COMMENT:' || c.parent_type || ':' || c.parent_id || ':' || ?, 1, ARRAY[c.user_id], ?, ? " +
+                    "FROM comments c JOIN LATERAL (" +
+                    "SELECT user_id AS owner_id FROM workouts WHERE c.parent_type = 'WORKOUT' AND id = c.parent_id " +
+                    "UNION ALL SELECT owner_id FROM routines WHERE c.parent_type = 'ROUTINE' AND id = c.parent_id" +
+                    ") parent ON TRUE " +
+                    "WHERE c.id = ? AND c.deleted_at IS NULL AND parent.owner_id <> c.user_id" + FOLD);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationHub notificationHub;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache unreadCounts;
+    private final long groupWindowSeconds;
+
+    public NotificationService(NotificationRepository notificationRepository, NotificationHub notificationHub,
+            JdbcTemplate jdbcTemplate, CacheManager cacheManager,
+            @Value("${notifications.group-window:15m}") Duration groupWindow) {
+        this.notificationRepository = notificationRepository;
+        this.notificationHub = notificationHub;
+        this.jdbcTemplate = jdbcTemplate;
+        this.unreadCounts = cacheManager.getCache(CacheConfig.UNREAD_NOTIFICATIONS);
+        this.groupWindowSeconds = Math.max(1, groupWindow.toSeconds());
+    }
+
+    /**
+     * Writes the notifications for a batch of outbox events, one JDBC batch per event type.
+     * Runs in the dispatcher's transaction.
+     */
+    public void createFromEvents(List<OutboxEvent> events) {
+        Map<Long, List<Long>> idsByUser = new LinkedHashMap<>();
+        events.stream()
+                .filter(event -> NOTIFICATION_SQL.containsKey(event.getEventType()))
+                .collect(Collectors.groupingBy(event -> NOTIFICATION_SQL.get(event.getEventType())))
+                .forEach((sql, batch) -> insertReturningKeys(sql, batch).forEach(keys -> idsByUser
+                        .computeIfAbsent(((Number) keys.get("user_id")).longValue(), id -> new ArrayList<>())
+                        .add(((Number) keys.get("id")).longValue())));
+        if (idsByUser.isEmpty()) {
+            return;
+        }
+        idsByUser.keySet().forEach(unreadCounts::evict);
+        notificationHub.notificationsCreated(idsByUser);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Notification> getNotifications(Long userId, Pageable pageable) {
+        return notificationRepository.findByUserId(userId, pageable);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.UNREAD_NOTIFICATIONS, key = "#userId", sync = true)
+    public long getUnreadCount(Long userId) {
+        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNREAD_NOTIFICATIONS, key = "#userId")
+    public boolean markRead(Long userId, Long notificationId) {
+        boolean changed = notificationRepository.markRead(notificationId, userId) > 0;
+        if (changed) {
+            notificationHub.unreadCountChanged(userId);
+        }
+        return changed;
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNREAD_NOTIFICATIONS, key = "#userId")
+    public int markAllRead(Long userId) {
+        int changed = notificationRepository.markAllRead(userId);
+        if (changed > 0) {
+            notificationHub.unreadCountChanged(userId);
+        }
+        return changed;
+    }
+
+    private List<Map<String, Object>> insertReturningKeys(String sql, List<OutboxEvent> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[] { "id", "user_id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        OutboxEvent event = batch.get(i);
+                        ps.setLong(1, event.getCreatedAt().toEpochSecond() / groupWindowSeconds);
+                        ps.setObject(2, event.getCreatedAt());
+                        ps.setObject(3, event.getCreatedAt());
+                        ps.setLong(4, event.getSubjectId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keyHolder);
+        return keyHolder.getKeyList();
+    }
+}
@@ -0,0 +1,179 @@
+package com.fitness.service;
+
+import com.fitness.model.OutboxEvent;
+import com.fitness.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Drains outbox_events into activity_feed and notifications rows with batched JDBC inserts.
+ * Each row is derived from the subject row with INSERT ... SELECT, so events whose subject
+ * was deleted in the meantime (unliked, unfollowed, deleted comment) produce nothing.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    // Every statement binds (created_at, updated_at, subject id)
+    private static final Map<OutboxEvent.EventType, String> ACTIVITY_SQL = Map.of(
+            OutboxEvent.EventType.WORKOUT_CREATED,
+            "INSERT INTO activity_feed (origin_user_id, type, payload, visibility, created_at, updated_at) " +
+                    "SELECT w.user_id, 'WORKOUT_CREATED', jsonb_build_object('workoutId', w.id, 'title', w.title), " +
+                    "CASE WHEN w.is_private THEN 'PRIVATE' ELSE 'PUBLIC' END, ?, ? " +
+                    "FROM workouts w WHERE w.id = ?",
+            OutboxEvent.EventType.USER_FOLLOWED,
+            "INSERT INTO activity_feed (origin_user_id, type, payload, visibility, created_at, updated_at) " +
+                    "SELECT f.follower_id, 'USER_FOLLOWED', jsonb_build_object('followeeId', f.followee_id), " +
+                    "'PUBLIC', ?, ? FROM follows f WHERE f.id = ?");
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ActivityFeedService activityFeedService;
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter dispatchedCounter;
+    private final Counter failedCounter;
+
+    @Value("${outbox.batch-size:500}")
+    private int batchSize;
+
+    // Caps the work done per poll so a large backlog cannot monopolize the pool
+    @Value("${outbox.max-batches-per-poll:10}")
+    private int maxBatchesPerPoll;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry-base-delay-seconds:2}")
+    private double retryBaseDelaySeconds;
+
+    @Value("${outbox.retry-max-delay-seconds:600}")
+    private double retryMaxDelaySeconds;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, ActivityFeedService activityFeedService,
+            NotificationService notificationService, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.activityFeedService = activityFeedService;
+        this.notificationService = notificationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dispatchedCounter = meterRegistry.counter("outbox.events.dispatched");
+        this.failedCounter = meterRegistry.counter("outbox.events.failed");
+        Gauge.builder("outbox.events.pending", outboxEventRepository, OutboxEventRepository::countPending)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:1000}")
+    public void dispatch() {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            int claimed;
+            try {
+                claimed = transactionTemplate.execute(status -> dispatchBatch());
+            } catch (RuntimeException e) {
+                log.warn("Outbox batch failed, dispatching events one by one", e);
+                claimed = dispatchIndividually();
+            }
+            if (claimed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> events = outboxEventRepository.claimBatch(batchSize);
+        if (!events.isEmpty()) {
+            apply(events);
+            outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+            dispatchedCounter.increment(events.size());
+        }
+        return events.size();
+    }
+
+    // Isolates the event that broke the batch so the rest still go through
+    private int dispatchIndividually() {
+        List<OutboxEvent> pending = transactionTemplate.execute(status -> outboxEventRepository.claimBatch(batchSize));
+        for (OutboxEvent event : pending) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.claimById(event.getId())
+                        .ifPresent(claimed -> {
+                            apply(List.of(claimed));
+                            outboxEventRepository.deleteById(claimed.getId());
+                            dispatchedCounter.increment();
+                        }));
+            } catch (RuntimeException e) {
+                markFailed(event, e);
+            }
+        }
+        return pending.size();
+    }
+
+    private void markFailed(OutboxEvent event, RuntimeException error) {
+        double backoff = Math.min(retryMaxDelaySeconds, retryBaseDelaySeconds * Math.pow(2, event.getAttempts()));
+        String message = String.valueOf(error.getMessage());
+        String truncated = message.substring(0, Math.min(message.length(), 1000));
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.markFailed(event.getId(), truncated, backoff, maxAttempts));
+        failedCounter.increment();
+        if (event.getAttempts() + 1 >= maxAttempts) {
+            log.error("Outbox event {} ({}) failed {} times, giving up", event.getId(), event.getEventType(),
+                    maxAttempts, error);
+        }
+    }
+
+    private void apply(List<OutboxEvent> events) {
+        List<Long> activityIds = new ArrayList<>();
+        groupBySql(events, ACTIVITY_SQL).forEach((sql, batch) -> activityIds.addAll(insertReturningIds(sql, batch)));
+        notificationService.createFromEvents(events);
+        activityFeedService.fanOut(activityIds);
+    }
+
+    private List<Long> insertReturningIds(String sql, List<OutboxEvent> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, batch.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keyHolder);
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.get("id")).longValue())
+                .toList();
+    }
+
+    private static Map<String, List<OutboxEvent>> groupBySql(List<OutboxEvent> events,
+            Map<OutboxEvent.EventType, String> statements) {
+        return events.stream()
+                .filter(event -> statements.containsKey(event.getEventType()))
+                .collect(Collectors.groupingBy(event -> statements.get(event.getEventType())));
+    }
+
+    private static void bind(PreparedStatement ps, OutboxEvent event) throws SQLException {
+        ps.setObject(1, event.getCreatedAt());
+        ps.setObject(2, event.getCreatedAt());
+        ps.setLong(3, event.getSubjectId());
+    }
+}
@@ -0,0 +1,25 @@
+package com.fitness.service;
+
+import com.fitness.model.OutboxEvent;
+import com.fitness.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    // Joins the caller's transaction so the event commits or rolls back with the change it describes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.EventType eventType, Long actorId, Long subjectId) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .actorId(actorId)
+                .subjectId(subjectId)
+                .build());
+    }
+}
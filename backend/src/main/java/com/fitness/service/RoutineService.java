@@ -1,8 +1,10 @@
 package com.fitness.service;
 
+import com.fitness.config.CacheConfig;
 import com.fitness.model.Routine;
 import com.fitness.repository.RoutineRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,8 +15,9 @@ public class RoutineService {
 
     private final RoutineRepository routineRepository;
 
+    @Cacheable(cacheNames = CacheConfig.ROUTINES, key = "#id", sync = true)
     public Routine getRoutineById(Long id) {
-        return routineRepository.findById(id)
+        return routineRepository.findWithExercisesById(id)
                 .orElseThrow(() -> new RuntimeException("Routine not found"));
     }
 
@@ -0,0 +1,255 @@
+package com.fitness.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * One user's history for one exercise as parallel primitive columns, ordered by workout start
+ * time. A point is one workout exercise entry: sets x reps at a weight. Each {@link Metric} is
+ * computed once when a point is added and kept in its own column, so a chart query is a
+ * sequential scan of one float array.
+ * <p>
+ * Reads take an optimistic stamp and fall back to a read lock only when a write raced them.
+ * Aggregation writes into caller-supplied arrays and allocates nothing.
+ */
+public final class SetSeries {
+
+    public static final float NO_WEIGHT = Float.NaN;
+    public static final int NO_COUNT = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float EPLEY = 1 / 30f;
+    private static final Metric[] METRICS = Metric.values();
+
+    public enum Metric {
+        WEIGHT, ESTIMATED_ONE_REP_MAX, VOLUME, REPS
+    }
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private long[] workoutIds = new long[INITIAL_CAPACITY];
+    // Indexed by metric ordinal; NaN where the entry has no value for the metric
+    private final float[][] values = new float[METRICS.length][INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Appends in time order; used while loading, before the series is shared.
+     */
+    void append(long time, long workoutId, float weight, int repCount, int setCount) {
+        ensureCapacity(size + 1);
+        store(size++, time, workoutId, weight, repCount, setCount);
+    }
+
+    /**
+     * Adds the entries of one workout unless the series already has them, so replaying a
+     * change that a concurrent load already picked up is harmless.
+     */
+    public void addWorkout(long time, long workoutId, float[] entryWeights, int[] entryReps, int[] entrySets) {
+        long stamp = lock.writeLock();
+        try {
+            if (indexOf(time, workoutId) >= 0) {
+                return;
+            }
+            int count = entryWeights.length;
+            ensureCapacity(size + count);
+            int at = upperBound(time);
+            if (at < size) {
+                shift(at, at + count, size - at);
+            }
+            for (int i = 0; i < count; i++) {
+                store(at + i, time, workoutId, entryWeights[i], entryReps[i], entrySets[i]);
+            }
+            size += count;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void removeWorkout(long time, long workoutId) {
+        long stamp = lock.writeLock();
+        try {
+            int from = lowerBound(times, size, time);
+            int to = from;
+            int kept = from;
+            while (to < size && times[to] == time) {
+                if (workoutIds[to] != workoutId) {
+                    shift(to, kept++, 1);
+                }
+                to++;
+            }
+            if (kept < to) {
+                shift(to, kept, size - to);
+                size -= to - kept;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return current;
+    }
+
+    public long firstTime() {
+        long stamp = lock.readLock();
+        try {
+            return size > 0 ? times[0] : Long.MIN_VALUE;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long lastTime() {
+        long stamp = lock.readLock();
+        try {
+            return size > 0 ? times[size - 1] : Long.MIN_VALUE;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Splits [from, to) into equal buckets and fills min, max, sum and count of the metric per
+     * bucket. Points without a value for the metric are skipped.
+     *
+     * @return number of points aggregated
+     */
+    public int aggregate(long from, long to, Metric metric, float[] min, float[] max, double[] sum, int[] count) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int aggregated = aggregateUnlocked(from, to, metric, min, max, sum, count);
+            if (lock.validate(stamp)) {
+                return aggregated;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return aggregateUnlocked(from, to, metric, min, max, sum, count);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // May run against a concurrent write; results are only used once the stamp validates. Points are
+    // sorted, so buckets are walked in order with running accumulators instead of dividing per point.
+    private int aggregateUnlocked(long from, long to, Metric metric, float[] min, float[] max, double[] sum,
+            int[] count) {
+        long[] t = times;
+        float[] v = values[metric.ordinal()];
+        int end = Math.min(size, Math.min(t.length, v.length));
+        int buckets = count.length;
+        double width = (double) (to - from) / buckets;
+        int i = lowerBound(t, end, from);
+        int aggregated = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            long bucketEnd = bucket == buckets - 1 ? to : from + (long) Math.ceil((bucket + 1) * width);
+            float bucketMin = Float.POSITIVE_INFINITY;
+            float bucketMax = Float.NEGATIVE_INFINITY;
+            double bucketSum = 0;
+            int bucketCount = 0;
+            for (; i < end && t[i] < bucketEnd; i++) {
+                float value = v[i];
+                // False for NaN
+                if (value >= 0) {
+                    bucketMin = value < bucketMin ? value : bucketMin;
+                    bucketMax = value > bucketMax ? value : bucketMax;
+                    bucketSum += value;
+                    bucketCount++;
+                }
+            }
+            min[bucket] = bucketMin;
+            max[bucket] = bucketMax;
+            sum[bucket] = bucketSum;
+            count[bucket] = bucketCount;
+            aggregated += bucketCount;
+        }
+        return aggregated;
+    }
+
+    // Same definitions as the training stats rollups; NaN when the entry says nothing about the metric
+    private static float value(Metric metric, float weight, int repCount, int setCount) {
+        return switch (metric) {
+            case WEIGHT -> weight > 0 ? weight : Float.NaN;
+            case ESTIMATED_ONE_REP_MAX -> weight > 0 && repCount > 0
+                    ? (repCount == 1 ? weight : weight * (1 + repCount * EPLEY)) : Float.NaN;
+            case VOLUME -> weight > 0 && repCount > 0 ? Math.max(setCount, 1) * repCount * weight : Float.NaN;
+            case REPS -> repCount >= 0 ? Math.max(setCount, 1) * repCount : Float.NaN;
+        };
+    }
+
+    private int indexOf(long time, long workoutId) {
+        for (int i = lowerBound(times, size, time); i < size && times[i] == time; i++) {
+            if (workoutIds[i] == workoutId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lowerBound(long[] t, int end, long time) {
+        int low = 0;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (t[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void store(int index, long time, long workoutId, float weight, int repCount, int setCount) {
+        times[index] = time;
+        workoutIds[index] = workoutId;
+        for (Metric metric : METRICS) {
+            values[metric.ordinal()][index] = value(metric, weight, repCount, setCount);
+        }
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(times, from, times, to, length);
+        System.arraycopy(workoutIds, from, workoutIds, to, length);
+        for (float[] column : values) {
+            System.arraycopy(column, from, column, to, length);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= times.length) {
+            return;
+        }
+        int capacity = Math.max(required, times.length + (times.length >> 1));
+        times = Arrays.copyOf(times, capacity);
+        workoutIds = Arrays.copyOf(workoutIds, capacity);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Arrays.copyOf(values[i], capacity);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.fitness.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-user training analytics kept in rollup tables (see V12): daily totals per user and per
+ * exercise, personal records per exercise, and a one-row summary with streaks. Writers refresh
+ * only the days their workouts fall on; readers get a handful of precomputed rows.
+ * <p>
+ * Days are UTC calendar days.
+ */
+@Service
+@RequiredArgsConstructor
+public class TrainingStatsService {
+
+    // Row lock on the summary row: refreshes for one user run one at a time and see each other's rows
+    private static final String LOCK_USER_SQL =
+            "INSERT INTO user_training_stats (user_id) VALUES (?) " +
+                    "ON CONFLICT (user_id) DO UPDATE SET updated_at = CURRENT_TIMESTAMP";
+
+    private static final String DAY_FILTER =
+            "w.user_id = ? AND w.start_time >= ? AND w.start_time < ? " +
+                    "AND (w.start_time AT TIME ZONE 'UTC')::date = ANY(CAST(? AS date[]))";
+
+    // Entries outside the limits createWorkout and imports enforce predate them; they are left out of
+    // the rollups, whose sums and 1RM estimates they would overflow
+    private static final String COUNTED_ENTRY =
+            "we.workout_id = w.id AND COALESCE(we.sets, 0) BETWEEN 0 AND " + WorkoutService.MAX_SETS + " " +
+                    "AND COALESCE(we.reps, 0) BETWEEN 0 AND " + WorkoutService.MAX_REPS;
+
+    private static final String INSERT_USER_DAYS_SQL =
+            "INSERT INTO user_daily_stats (user_id, day, workouts, sets, reps, volume_kg) " +
+                    "SELECT w.user_id, (w.start_time AT TIME ZONE 'UTC')::date, COUNT(DISTINCT w.id), " +
+                    "COALESCE(SUM(COALESCE(we.sets, 1)) FILTER (WHERE we.id IS NOT NULL), 0), " +
+                    "COALESCE(SUM(COALESCE(we.sets, 1) * we.reps), 0), " +
+                    "COALESCE(SUM(COALESCE(we.sets, 1) * we.reps * we.weight_kg), 0) " +
+                    "FROM workouts w LEFT JOIN workout_exercises we ON " + COUNTED_ENTRY + " " +
+                    "WHERE " + DAY_FILTER + " GROUP BY 1, 2";
+
+    private static final String INSERT_EXERCISE_DAYS_SQL =
+            "INSERT INTO exercise_daily_stats (user_id, exercise_id, day, sets, reps, volume_kg, best_weight_kg, " +
+                    "best_1rm_kg) " +
+                    "SELECT w.user_id, we.exercise_id, (w.start_time AT TIME ZONE 'UTC')::date, " +
+                    "SUM(COALESCE(we.sets, 1)), COALESCE(SUM(COALESCE(we.sets, 1) * we.reps), 0), " +
+                    "COALESCE(SUM(COALESCE(we.sets, 1) * we.reps * we.weight_kg), 0), " +
+                    "MAX(we.weight_kg) FILTER (WHERE we.weight_kg > 0), " +
+                    "MAX(CASE WHEN we.reps = 1 THEN we.weight_kg ELSE we.weight_kg * (1 + we.reps / 30.0) END) " +
+                    "FILTER (WHERE we.weight_kg > 0 AND we.reps > 0) " +
+                    "FROM workouts w JOIN workout_exercises we ON " + COUNTED_ENTRY + " " +
+                    "WHERE " + DAY_FILTER + " GROUP BY 1, 2, 3";
+
+    // Records set on a refreshed day may no longer hold; those exercises are re-derived from all their days
+    private static final String DELETE_STALE_RECORDS_SQL =
+            "DELETE FROM exercise_records WHERE user_id = ? " +
+                    "AND (best_1rm_day = ANY(CAST(? AS date[])) OR best_weight_day = ANY(CAST(? AS date[]))) " +
+                    "RETURNING exercise_id";
+
+    private static final String UPSERT_RECORDS_SQL =
+            "INSERT INTO exercise_records AS r (user_id, exercise_id, best_1rm_kg, best_1rm_day, best_weight_kg, " +
+                    "best_weight_day) " +
+                    "SELECT user_id, exercise_id, " +
+                    "(ARRAY_AGG(best_1rm_kg ORDER BY best_1rm_kg DESC NULLS LAST, day))[1], " +
+                    "(ARRAY_AGG(day ORDER BY best_1rm_kg DESC NULLS LAST, day) " +
+                    "FILTER (WHERE best_1rm_kg IS NOT NULL))[1], " +
+                    "(ARRAY_AGG(best_weight_kg ORDER BY best_weight_kg DESC NULLS LAST, day))[1], " +
+                    "(ARRAY_AGG(day ORDER BY best_weight_kg DESC NULLS LAST, day) " +
+                    "FILTER (WHERE best_weight_kg IS NOT NULL))[1] " +
+                    "FROM exercise_daily_stats " +
+                    "WHERE user_id = ? AND (day = ANY(CAST(? AS date[])) OR exercise_id = ANY(?)) " +
+                    "GROUP BY user_id, exercise_id " +
+                    "HAVING MAX(best_1rm_kg) IS NOT NULL OR MAX(best_weight_kg) IS NOT NULL " +
+                    "ON CONFLICT (user_id, exercise_id) DO UPDATE SET " +
+                    "best_1rm_kg = GREATEST(r.best_1rm_kg, EXCLUDED.best_1rm_kg), " +
+                    "best_1rm_day = CASE WHEN r.best_1rm_kg IS NULL OR EXCLUDED.best_1rm_kg > r.best_1rm_kg " +
+                    "THEN EXCLUDED.best_1rm_day ELSE r.best_1rm_day END, " +
+                    "best_weight_kg = GREATEST(r.best_weight_kg, EXCLUDED.best_weight_kg), " +
+                    "best_weight_day = CASE WHEN r.best_weight_kg IS NULL " +
+                    "OR EXCLUDED.best_weight_kg > r.best_weight_kg " +
+                    "THEN EXCLUDED.best_weight_day ELSE r.best_weight_day END";
+
+    // Streaks are runs of consecutive days; this reads one row per training day, never workouts
+    private static final String REFRESH_SUMMARY_SQL =
+            "UPDATE user_training_stats s SET total_workouts = t.total_workouts, " +
+                    "total_volume_kg = t.total_volume_kg, training_days = t.training_days, " +
+                    "current_streak = t.current_streak, longest_streak = t.longest_streak, " +
+                    "last_workout_day = t.last_workout_day, updated_at = CURRENT_TIMESTAMP " +
+                    "FROM (SELECT COALESCE(SUM(workouts), 0) AS total_workouts, " +
+                    "COALESCE(SUM(volume_kg), 0) AS total_volume_kg, COALESCE(SUM(length), 0) AS training_days, " +
+                    "COALESCE((ARRAY_AGG(length ORDER BY last_day DESC))[1], 0) AS current_streak, " +
+                    "COALESCE(MAX(length), 0) AS longest_streak, MAX(last_day) AS last_workout_day " +
+                    "FROM (SELECT SUM(workouts) AS workouts, SUM(volume_kg) AS volume_kg, COUNT(*) AS length, " +
+                    "MAX(day) AS last_day " +
+                    "FROM (SELECT workouts, volume_kg, day, day - (ROW_NUMBER() OVER (ORDER BY day))::int AS run " +
+                    "FROM user_daily_stats WHERE user_id = ?) days GROUP BY run) runs) t " +
+                    "WHERE s.user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public enum Period {
+        DAY, WEEK, MONTH
+    }
+
+    public record TrainingSummary(int totalWorkouts, BigDecimal totalVolumeKg, int trainingDays, int currentStreak,
+            int longestStreak, LocalDate lastWorkoutDate) {
+    }
+
+    public record VolumePoint(LocalDate periodStart, Integer workouts, int sets, int reps, BigDecimal volumeKg,
+            BigDecimal bestOneRepMaxKg) {
+    }
+
+    public record PersonalRecord(Long exerciseId, BigDecimal estimatedOneRepMaxKg, LocalDate estimatedOneRepMaxDate,
+            BigDecimal bestWeightKg, LocalDate bestWeightDate) {
+    }
+
+    public static LocalDate statsDay(OffsetDateTime time) {
+        return time.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    /**
+     * Recomputes a user's rollups for the given days from their workouts. Runs in the
+     * transaction that changed the workouts, after those changes have been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshDays(Long userId, Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(LOCK_USER_SQL, userId);
+
+        String[] dayArray = days.stream().distinct().map(LocalDate::toString).toArray(String[]::new);
+        OffsetDateTime from = Collections.min(days).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = Collections.max(days).plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        jdbcTemplate.update("DELETE FROM user_daily_stats WHERE user_id = ? AND day = ANY(CAST(? AS date[]))",
+                userId, dayArray);
+        jdbcTemplate.update(INSERT_USER_DAYS_SQL, userId, from, to, dayArray);
+        jdbcTemplate.update("DELETE FROM exercise_daily_stats WHERE user_id = ? AND day = ANY(CAST(? AS date[]))",
+                userId, dayArray);
+        jdbcTemplate.update(INSERT_EXERCISE_DAYS_SQL, userId, from, to, dayArray);
+
+        List<Long> staleRecords = jdbcTemplate.queryForList(DELETE_STALE_RECORDS_SQL, Long.class,
+                userId, dayArray, dayArray);
+        jdbcTemplate.update(UPSERT_RECORDS_SQL, userId, dayArray, staleRecords.toArray(new Long[0]));
+        jdbcTemplate.update(REFRESH_SUMMARY_SQL, userId, userId);
+    }
+
+    public TrainingSummary getSummary(Long userId) {
+        List<TrainingSummary> rows = jdbcTemplate.query(
+                "SELECT total_workouts, total_volume_kg, training_days, current_streak, longest_streak, " +
+                        "last_workout_day FROM user_training_stats WHERE user_id = ?",
+                (rs, rowNum) -> {
+                    LocalDate lastDay = rs.getObject("last_workout_day", LocalDate.class);
+                    // The stored streak ends on the last training day; it is broken once a full day is missed
+                    boolean streakAlive = lastDay != null
+                            && !lastDay.isBefore(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+                    return new TrainingSummary(rs.getInt("total_workouts"), rs.getBigDecimal("total_volume_kg"),
+                            rs.getInt("training_days"), streakAlive ? rs.getInt("current_streak") : 0,
+                            rs.getInt("longest_streak"), lastDay);
+                },
+                userId);
+        return rows.isEmpty() ? new TrainingSummary(0, BigDecimal.ZERO, 0, 0, 0, null) : rows.get(0);
+    }
+
+    /**
+     * Totals per day, ISO week or month between two days (inclusive), for all training or one exercise.
+     */
+    public List<VolumePoint> getVolume(Long userId, Long exerciseId, Period period, LocalDate from, LocalDate to) {
+        String unit = period.name().toLowerCase(Locale.ROOT);
+        if (exerciseId == null) {
+            return jdbcTemplate.query(
+                    "SELECT date_trunc(?, day)::date AS period_start, SUM(workouts) AS workouts, SUM(sets) AS sets, " +
+                            "SUM(reps) AS reps, SUM(volume_kg) AS volume_kg " +
+                            "FROM user_daily_stats WHERE user_id = ? AND day BETWEEN ? AND ? " +
+                            "GROUP BY 1 ORDER BY 1",
+                    (rs, rowNum) -> new VolumePoint(rs.getObject("period_start", LocalDate.class),
+                            rs.getInt("workouts"), rs.getInt("sets"), rs.getInt("reps"),
+                            rs.getBigDecimal("volume_kg"), null),
+                    unit, userId, from, to);
+        }
+        return jdbcTemplate.query(
+                "SELECT date_trunc(?, day)::date AS period_start, SUM(sets) AS sets, SUM(reps) AS reps, " +
+                        "SUM(volume_kg) AS volume_kg, MAX(best_1rm_kg) AS best_1rm_kg " +
+                        "FROM exercise_daily_stats WHERE user_id = ? AND exercise_id = ? AND day BETWEEN ? AND ? " +
+                        "GROUP BY 1 ORDER BY 1",
+                (rs, rowNum) -> new VolumePoint(rs.getObject("period_start", LocalDate.class), null,
+                        rs.getInt("sets"), rs.getInt("reps"), rs.getBigDecimal("volume_kg"),
+                        rs.getBigDecimal("best_1rm_kg")),
+                unit, userId, exerciseId, from, to);
+    }
+
+    public List<PersonalRecord> getPersonalRecords(Long userId) {
+        return jdbcTemplate.query(
+                "SELECT exercise_id, best_1rm_kg, best_1rm_day, best_weight_kg, best_weight_day " +
+                        "FROM exercise_records WHERE user_id = ? ORDER BY best_1rm_kg DESC NULLS LAST, exercise_id",
+                (rs, rowNum) -> new PersonalRecord(rs.getLong("exercise_id"), rs.getBigDecimal("best_1rm_kg"),
+                        rs.getObject("best_1rm_day", LocalDate.class), rs.getBigDecimal("best_weight_kg"),
+                        rs.getObject("best_weight_day", LocalDate.class)),
+                userId);
+    }
+}
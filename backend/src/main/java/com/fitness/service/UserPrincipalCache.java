@@ -0,0 +1,77 @@
+package com.fitness.service;
+
+import com.fitness.model.User;
+import com.fitness.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+    // Bumped by every invalidation; a load that overlaps one may have read the old row
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserPrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public User getByUsername(String username) {
+        User cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        // Loaded outside the cache: Caffeine's compute runs under a map bin monitor, which
+        // would pin a virtual thread for the whole query
+        long seen = invalidations.get();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        cache.put(username, user);
+        // Checked after the put, so an invalidation either sees this entry or is seen here
+        if (invalidations.get() != seen) {
+            cache.asMap().remove(username, user);
+        }
+        return user;
+    }
+
+    /**
+     * Drops the cached principal once the surrounding transaction commits; evicting earlier would
+     * let a concurrent request reload the old row before the change is visible.
+     */
+    public void invalidate(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(username);
+            }
+        });
+    }
+
+    private void evict(String username) {
+        invalidations.incrementAndGet();
+        cache.invalidate(username);
+    }
+}
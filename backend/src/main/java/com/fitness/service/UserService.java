@@ -1,36 +1,68 @@
 package com.fitness.service;
 
+import com.fitness.config.CacheConfig;
 import com.fitness.model.User;
 import com.fitness.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id", sync = true)
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#username", sync = true)
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    public Map<Long, User> getUsersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#result.username")
+    })
     public User updateProfile(Long userId, String displayName, String bio, String avatarUrl) {
-        User user = getUserById(userId);
+        User user = loadUser(userId);
         if (displayName != null)
             user.setDisplayName(displayName);
         if (bio != null)
             user.setBio(bio);
         if (avatarUrl != null)
             user.setAvatarUrl(avatarUrl);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userPrincipalCache.invalidate(saved.getUsername());
+        return saved;
+    }
+
+    // Write paths work on a managed entity, never on a shared cached instance
+    private User loadUser(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
 }
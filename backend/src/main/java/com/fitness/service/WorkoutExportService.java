@@ -0,0 +1,240 @@
+package com.fitness.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams a user's whole workout history to an output stream. Rows are read through a
+ * server-side cursor and written as they arrive, so memory use does not grow with the
+ * length of the history.
+ * <p>
+ * Both formats are ones {@link WorkoutImportParser} reads, so an export can be imported again.
+ * <p>
+ * An export holds a pooled connection for the whole download, so only {@code export.concurrency}
+ * run at once and the rest are turned away before anything is written.
+ */
+@Service
+public class WorkoutExportService {
+
+    private static final String HISTORY_SQL = "SELECT w.id, w.title, w.notes, w.start_time, w.end_time, " +
+            "w.duration_seconds, w.calories_burned, w.is_private, we.exercise_id, e.name AS exercise_name, " +
+            "we.sets, we.reps, we.weight_kg, we.duration_seconds AS exercise_duration_seconds, " +
+            "we.notes AS exercise_notes " +
+            "FROM workouts w " +
+            "LEFT JOIN workout_exercises we ON we.workout_id = w.id " +
+            "LEFT JOIN exercises e ON e.id = we.exercise_id " +
+            "WHERE w.user_id = ? " +
+            "ORDER BY w.start_time, w.id, we.order_index";
+
+    private static final CSVFormat CSV = CSVFormat.DEFAULT.builder()
+            .setHeader("workout_id", "title", "start_time", "end_time", "notes", "is_private",
+                    "workout_duration_seconds", "calories_burned", "exercise_id", "exercise", "sets", "reps",
+                    "weight_kg", "duration_seconds", "exercise_notes")
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    public WorkoutExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, @Value("${export.concurrency:4}") int concurrency) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.permits = new Semaphore(concurrency);
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown export format, expected CSV or NDJSON");
+            }
+        }
+    }
+
+    // The destination is only opened once a permit is held, so a rejected export writes nothing
+    public void export(Long userId, Format format, Destination destination) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many exports in progress, try again later");
+        }
+        try {
+            OutputStream out = destination.open();
+            if (format == Format.CSV) {
+                exportCsv(userId, out);
+            } else {
+                exportNdjson(userId, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Destination {
+
+        OutputStream open() throws IOException;
+    }
+
+    private void exportCsv(Long userId, OutputStream out) throws IOException {
+        CSVPrinter printer = CSV.print(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        streamHistory(userId, rs -> printer.printRecord(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getObject("start_time", OffsetDateTime.class),
+                rs.getObject("end_time", OffsetDateTime.class),
+                rs.getString("notes"),
+                rs.getBoolean("is_private"),
+                rs.getObject("duration_seconds", Integer.class),
+                rs.getObject("calories_burned", Integer.class),
+                rs.getObject("exercise_id", Long.class),
+                rs.getString("exercise_name"),
+                rs.getObject("sets", Integer.class),
+                rs.getObject("reps", Integer.class),
+                rs.getBigDecimal("weight_kg"),
+                rs.getObject("exercise_duration_seconds", Integer.class),
+                rs.getString("exercise_notes")));
+        printer.flush();
+    }
+
+    // One JSON object per workout; rows of a workout are adjacent, so each is closed as the next begins
+    private void exportNdjson(Long userId, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        long[] currentWorkout = { -1 };
+        streamHistory(userId, rs -> {
+            long workoutId = rs.getLong("id");
+            if (workoutId != currentWorkout[0]) {
+                if (currentWorkout[0] != -1) {
+                    endWorkout(generator);
+                }
+                currentWorkout[0] = workoutId;
+                generator.writeStartObject();
+                generator.writeNumberField("id", workoutId);
+                writeString(generator, "title", rs.getString("title"));
+                writeString(generator, "notes", rs.getString("notes"));
+                writeTime(generator, "startTime", rs.getObject("start_time", OffsetDateTime.class));
+                writeTime(generator, "endTime", rs.getObject("end_time", OffsetDateTime.class));
+                writeInt(generator, "durationSeconds", rs.getObject("duration_seconds", Integer.class));
+                writeInt(generator, "caloriesBurned", rs.getObject("calories_burned", Integer.class));
+                generator.writeBooleanField("isPrivate", rs.getBoolean("is_private"));
+                generator.writeArrayFieldStart("exercises");
+            }
+            Long exerciseId = rs.getObject("exercise_id", Long.class);
+            if (exerciseId != null) {
+                generator.writeStartObject();
+                generator.writeNumberField("exerciseId", exerciseId);
+                writeString(generator, "exercise", rs.getString("exercise_name"));
+                writeInt(generator, "sets", rs.getObject("sets", Integer.class));
+                writeInt(generator, "reps", rs.getObject("reps", Integer.class));
+                BigDecimal weightKg = rs.getBigDecimal("weight_kg");
+                if (weightKg != null) {
+                    generator.writeNumberField("weightKg", weightKg);
+                }
+                writeInt(generator, "durationSeconds", rs.getObject("exercise_duration_seconds", Integer.class));
+                writeString(generator, "notes", rs.getString("exercise_notes"));
+                generator.writeEndObject();
+            }
+        });
+        if (currentWorkout[0] != -1) {
+            endWorkout(generator);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    // PostgreSQL only streams with a cursor when a fetch size is set and autocommit is off
+    private void streamHistory(Long userId, RowWriter writer) {
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(HISTORY_SQL);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, userId);
+            return statement;
+        }, rs -> {
+            try {
+                writer.write(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static void endWorkout(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, String field, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value);
+        }
+    }
+
+    private static void writeInt(JsonGenerator generator, String field, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeTime(JsonGenerator generator, String field, OffsetDateTime value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value.toString());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.fitness.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.model.Exercise;
+import com.fitness.model.ImportJob;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams workouts out of an import file one record at a time, so memory use does not
+ * depend on file size.
+ * <p>
+ * CSV files have one row per exercise; consecutive rows with the same start_time and title
+ * form one workout. JSON files hold workout objects with nested exercises, either in one array
+ * or one object per line.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkoutImportParser {
+
+    private static final int MAX_TITLE_LENGTH = 100;
+    private static final BigDecimal MAX_WEIGHT_KG = new BigDecimal("999.99");
+
+    private static final CSVFormat CSV = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    private final ExerciseCatalog exerciseCatalog;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Receives parsed workouts and rejected rows in file order. Rows are numbered from 1:
+     * data rows after the header for CSV, array elements for JSON.
+     */
+    public interface Listener {
+
+        void workout(ParsedWorkout workout);
+
+        void rowRejected(int row, String message);
+    }
+
+    /**
+     * @param row   first source row of the workout
+     * @param rows  number of source rows that were accepted into it
+     */
+    public record ParsedWorkout(int row, int rows, String title, String notes, OffsetDateTime startTime,
+            OffsetDateTime endTime, boolean isPrivate, List<WorkoutService.WorkoutExerciseInput> exercises) {
+    }
+
+    /**
+     * Row-level problems are reported to the listener; an unreadable file (bad header, broken
+     * JSON syntax) throws and ends the parse.
+     */
+    public void parse(InputStream in, ImportJob.Format format, Listener listener) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (format == ImportJob.Format.CSV) {
+            parseCsv(reader, listener);
+        } else {
+            parseJson(reader, listener);
+        }
+    }
+
+    private void parseCsv(Reader reader, Listener listener) throws IOException {
+        try (CSVParser parser = CSV.parse(reader)) {
+            if (!parser.getHeaderMap().containsKey("start_time")) {
+                throw new RuntimeException("CSV header must include a start_time column");
+            }
+            PendingWorkout pending = null;
+            for (CSVRecord record : parser) {
+                int row = (int) record.getRecordNumber();
+                String key = value(record, "start_time") + '\u0000' + value(record, "title");
+                try {
+                    if (pending == null || !pending.key.equals(key)) {
+                        emit(pending, listener);
+                        // Cleared first so a rejected row cannot append to the previous workout
+                        pending = null;
+                        pending = new PendingWorkout(key, row, value(record, "title"), value(record, "notes"),
+                                parseTime(value(record, "start_time"), "start_time"),
+                                parseTime(value(record, "end_time"), "end_time"),
+                                Boolean.parseBoolean(value(record, "is_private")));
+                    }
+                    String exerciseId = value(record, "exercise_id");
+                    String exerciseName = value(record, "exercise");
+                    if (exerciseId != null || exerciseName != null) {
+                        pending.exercises.add(new WorkoutService.WorkoutExerciseInput(
+                                resolveExercise(parseLong(exerciseId, "exercise_id"), exerciseName),
+                                parseCount(value(record, "sets"), WorkoutService.MAX_SETS, "sets"),
+                                parseCount(value(record, "reps"), WorkoutService.MAX_REPS, "reps"),
+                                parseWeight(value(record, "weight_kg")),
+                                parseCount(value(record, "duration_seconds"), Integer.MAX_VALUE, "duration_seconds"),
+                                pending.exercises.size(),
+                                value(record, "exercise_notes")));
+                    }
+                    pending.rows++;
+                } catch (IllegalArgumentException e) {
+                    listener.rowRejected(row, e.getMessage());
+                }
+            }
+            emit(pending, listener);
+        }
+    }
+
+    // A workout whose rows were all rejected is dropped rather than imported empty
+    private static void emit(PendingWorkout pending, Listener listener) {
+        if (pending != null && pending.rows > 0) {
+            listener.workout(pending.build());
+        }
+    }
+
+    private void parseJson(Reader reader, Listener listener) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(reader)) {
+            // Either an array of workouts or newline-delimited workout objects, as the export writes them
+            JsonToken first = parser.nextToken();
+            boolean array = first == JsonToken.START_ARRAY;
+            if (!array && first != JsonToken.START_OBJECT) {
+                throw new RuntimeException("JSON import must be an array of workouts or one workout per line");
+            }
+            int row = 0;
+            for (JsonToken token = array ? parser.nextToken() : first; token != JsonToken.END_ARRAY;
+                    token = parser.nextToken()) {
+                if (token == null) {
+                    if (array) {
+                        throw new RuntimeException("Unexpected end of JSON input");
+                    }
+                    break;
+                }
+                row++;
+                // Reading one element as a tree keeps a bad record from derailing the rest of the stream
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    if (!node.isObject()) {
+                        throw new IllegalArgumentException("Expected a workout object");
+                    }
+                    JsonWorkout json = objectMapper.treeToValue(node, JsonWorkout.class);
+                    PendingWorkout pending = new PendingWorkout(null, row, blankToNull(json.title()),
+                            blankToNull(json.notes()), parseTime(json.startTime(), "startTime"),
+                            parseTime(json.endTime(), "endTime"), Boolean.TRUE.equals(json.isPrivate()));
+                    if (json.exercises() != null) {
+                        for (JsonExercise exercise : json.exercises()) {
+                            if (exercise == null) {
+                                throw new IllegalArgumentException("Exercise id or name is required");
+                            }
+                            pending.exercises.add(new WorkoutService.WorkoutExerciseInput(
+                                    resolveExercise(exercise.exerciseId(), blankToNull(exercise.exercise())),
+                                    checkCount(exercise.sets(), WorkoutService.MAX_SETS, "sets"),
+                                    checkCount(exercise.reps(), WorkoutService.MAX_REPS, "reps"),
+                                    checkWeight(exercise.weightKg()),
+                                    checkCount(exercise.durationSeconds(), Integer.MAX_VALUE, "durationSeconds"),
+                                    pending.exercises.size(),
+                                    blankToNull(exercise.notes())));
+                        }
+                    }
+                    pending.rows = 1;
+                    listener.workout(pending.build());
+                } catch (JsonProcessingException e) {
+                    listener.rowRejected(row, "Invalid workout: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    listener.rowRejected(row, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private long resolveExercise(Long id, String name) {
+        if (id != null) {
+            return exerciseCatalog.get(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Exercise not found: " + id))
+                    .getId();
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("Exercise id or name is required");
+        }
+        return exerciseCatalog.findByName(name)
+                .map(Exercise::getId)
+                .orElseThrow(() -> new IllegalArgumentException("Exercise not found: " + name));
+    }
+
+    private static String value(CSVRecord record, String column) {
+        return record.isMapped(column) && record.isSet(column) ? blankToNull(record.get(column)) : null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static OffsetDateTime parseTime(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                // No offset given: the timestamp is taken as UTC
+                return LocalDateTime.parse(value).atOffset(ZoneOffset.UTC);
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("Invalid " + field + ": " + value);
+            }
+        }
+    }
+
+    private static Long parseLong(String value, String field) {
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Integer parseCount(String value, int max, String field) {
+        try {
+            return checkCount(value != null ? Integer.valueOf(value) : null, max, field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Integer checkCount(Integer value, int max, String field) {
+        if (value != null && (value < 0 || value > max)) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+        return value;
+    }
+
+    private static BigDecimal parseWeight(String value) {
+        try {
+            return checkWeight(value != null ? new BigDecimal(value) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid weight_kg: " + value);
+        }
+    }
+
+    private static BigDecimal checkWeight(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.signum() < 0 || value.compareTo(MAX_WEIGHT_KG) > 0) {
+            throw new IllegalArgumentException("Invalid weight: " + value);
+        }
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static final class PendingWorkout {
+
+        private final String key;
+        private final int row;
+        private final String title;
+        private final String notes;
+        private final OffsetDateTime startTime;
+        private final OffsetDateTime endTime;
+        private final boolean isPrivate;
+        private final List<WorkoutService.WorkoutExerciseInput> exercises = new ArrayList<>();
+        private int rows;
+
+        PendingWorkout(String key, int row, String title, String notes, OffsetDateTime startTime,
+                OffsetDateTime endTime, boolean isPrivate) {
+            if (startTime == null) {
+                throw new IllegalArgumentException("Start time is required");
+            }
+            if (endTime != null && endTime.isBefore(startTime)) {
+                throw new IllegalArgumentException("End time is before start time");
+            }
+            if (title != null && title.length() > MAX_TITLE_LENGTH) {
+                throw new IllegalArgumentException("Title is longer than " + MAX_TITLE_LENGTH + " characters");
+            }
+            this.key = key;
+            this.row = row;
+            this.title = title;
+            this.notes = notes;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.isPrivate = isPrivate;
+        }
+
+        ParsedWorkout build() {
+            return new ParsedWorkout(row, rows, title, notes, startTime, endTime, isPrivate, List.copyOf(exercises));
+        }
+    }
+
+    private record JsonWorkout(String title, String notes, String startTime, String endTime, Boolean isPrivate,
+            List<JsonExercise> exercises) {
+    }
+
+    private record JsonExercise(Long exerciseId, String exercise, Integer sets, Integer reps, BigDecimal weightKg,
+            Integer durationSeconds, String notes) {
+    }
+}
@@ -0,0 +1,243 @@
+package com.fitness.service;
+
+import com.fitness.model.ImportJob;
+import com.fitness.repository.ImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs bulk workout imports in the background. Files are parsed as a stream and written in
+ * chunks, each chunk in its own transaction, with progress and rejected rows recorded on the
+ * {@link ImportJob} after every chunk.
+ * <p>
+ * Imported workouts are history: they count towards training stats but produce no feed entries
+ * or notifications.
+ */
+@Slf4j
+@Service
+public class WorkoutImportService implements DisposableBean {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final ImportJobRepository importJobRepository;
+    private final WorkoutImportParser parser;
+    private final WorkoutImportWriter writer;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Autowired(required = false)
+    private MediaService mediaService;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    // A dedicated pool, so long imports never hold request or scheduler threads
+    public WorkoutImportService(ImportJobRepository importJobRepository, WorkoutImportParser parser,
+            WorkoutImportWriter writer, @Value("${import.concurrency:2}") int concurrency,
+            @Value("${import.queue-capacity:20}") int queueCapacity) {
+        this.importJobRepository = importJobRepository;
+        this.parser = parser;
+        this.writer = writer;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("workout-import-");
+        executor.initialize();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    public interface ImportSource {
+
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Imports an uploaded file that has been spooled to disk; the file is deleted once the
+     * import finishes.
+     */
+    public ImportJob importFile(Long userId, ImportJob.Format format, String fileName, Path file) {
+        return start(userId, format, fileName, () -> Files.newInputStream(file), () -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+        });
+    }
+
+    /**
+     * Imports a file the client uploaded to object storage through a presigned URL. Only keys
+     * under the caller's own upload prefix are accepted.
+     */
+    public ImportJob importObject(Long userId, ImportJob.Format format, String objectKey) {
+        if (mediaService == null) {
+            throw new IllegalStateException("S3 media service is not configured");
+        }
+        if (!objectKey.startsWith(mediaService.uploadPrefix(userId))) {
+            throw new RuntimeException("Not authorized to import this file");
+        }
+        return start(userId, format, objectKey, () -> mediaService.openObject(objectKey), () -> {
+        });
+    }
+
+    public ImportJob getImportJob(Long id, Long userId) {
+        return importJobRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new RuntimeException("Import job not found"));
+    }
+
+    /**
+     * Uses the requested format when given, otherwise the file extension.
+     */
+    public static ImportJob.Format resolveFormat(ImportJob.Format requested, String fileName) {
+        if (requested != null) {
+            return requested;
+        }
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv")) {
+            return ImportJob.Format.CSV;
+        }
+        if (name.endsWith(".json") || name.endsWith(".ndjson")) {
+            return ImportJob.Format.JSON;
+        }
+        throw new RuntimeException("Unknown import format, expected CSV or JSON");
+    }
+
+    private ImportJob start(Long userId, ImportJob.Format format, String sourceName, ImportSource source,
+            Runnable cleanup) {
+        ImportJob job = importJobRepository.save(ImportJob.builder()
+                .userId(userId)
+                .status(ImportJob.Status.PENDING)
+                .format(format)
+                .source(sourceName)
+                .build());
+        try {
+            executor.execute(() -> run(job.getId(), source, cleanup));
+        } catch (TaskRejectedException e) {
+            cleanup.run();
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setErrorMessage("Too many imports in progress");
+            job.setFinishedAt(OffsetDateTime.now());
+            importJobRepository.save(job);
+            throw new RuntimeException("Too many imports in progress, try again later");
+        }
+        return job;
+    }
+
+    // Works on its own copy of the job; the one returned to the caller is never touched again
+    private void run(Long jobId, ImportSource source, Runnable cleanup) {
+        try {
+            ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+            job.setStatus(ImportJob.Status.RUNNING);
+            ImportRun run = new ImportRun(importJobRepository.save(job));
+            try (InputStream in = source.open()) {
+                parser.parse(in, job.getFormat(), run);
+                run.flush();
+                run.finish(ImportJob.Status.COMPLETED, null);
+            } catch (Exception e) {
+                log.warn("Import job {} failed", jobId, e);
+                // Workouts parsed before the failure are still valid
+                run.flush();
+                run.finish(ImportJob.Status.FAILED, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        } finally {
+            cleanup.run();
+        }
+    }
+
+    private final class ImportRun implements WorkoutImportParser.Listener {
+
+        private final List<WorkoutImportParser.ParsedWorkout> chunk = new ArrayList<>();
+        private ImportJob job;
+
+        ImportRun(ImportJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void workout(WorkoutImportParser.ParsedWorkout workout) {
+            chunk.add(workout);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void rowRejected(int row, String message) {
+            job.setProcessedRows(job.getProcessedRows() + 1);
+            reject(row, 1, message);
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                writer.write(job.getUserId(), chunk);
+                imported(chunk);
+            } catch (DataAccessException e) {
+                // One bad workout should not cost the rest of the chunk
+                log.debug("Import job {} chunk failed, retrying workouts one by one", job.getId(), e);
+                for (WorkoutImportParser.ParsedWorkout workout : chunk) {
+                    try {
+                        writer.write(job.getUserId(), List.of(workout));
+                        imported(List.of(workout));
+                    } catch (DataAccessException workoutFailure) {
+                        job.setProcessedRows(job.getProcessedRows() + workout.rows());
+                        reject(workout.row(), workout.rows(), "Could not save workout: "
+                                + NestedExceptionUtils.getMostSpecificCause(workoutFailure).getMessage());
+                    }
+                }
+            } finally {
+                // Never written twice, even when the flush itself fails
+                chunk.clear();
+            }
+            job = importJobRepository.save(job);
+        }
+
+        void finish(ImportJob.Status status, String errorMessage) {
+            job.setStatus(status);
+            if (errorMessage != null) {
+                job.setErrorMessage(errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH
+                        ? errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH) : errorMessage);
+            }
+            job.setFinishedAt(OffsetDateTime.now());
+            job = importJobRepository.save(job);
+        }
+
+        private void imported(List<WorkoutImportParser.ParsedWorkout> workouts) {
+            for (WorkoutImportParser.ParsedWorkout workout : workouts) {
+                job.setProcessedRows(job.getProcessedRows() + workout.rows());
+                job.setImportedWorkouts(job.getImportedWorkouts() + 1);
+            }
+        }
+
+        private void reject(int row, int rows, String message) {
+            job.setFailedRows(job.getFailedRows() + rows);
+            if (job.getErrors().size() < MAX_REPORTED_ERRORS) {
+                job.getErrors().add(new ImportJob.RowError(row, message));
+            }
+        }
+    }
+}
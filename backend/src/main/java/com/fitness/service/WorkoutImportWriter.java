@@ -0,0 +1,142 @@
+package com.fitness.service;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts parsed workouts with plain JDBC: one transaction per chunk, ids taken from the
+ * pooled sequences up front, rows streamed with COPY on PostgreSQL and a JDBC batch elsewhere.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkoutImportWriter {
+
+    // Matches allocationSize on Workout and WorkoutExercise: each nextval owns the 50 ids up to it
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String[] WORKOUT_COLUMNS = {
+            "id", "user_id", "title", "notes", "start_time", "end_time", "is_private", "created_at", "updated_at" };
+    private static final String[] EXERCISE_COLUMNS = {
+            "id", "workout_id", "exercise_id", "sets", "reps", "weight_kg", "duration_seconds", "order_index",
+            "notes" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TrainingStatsService trainingStatsService;
+    private final ExerciseProgressService exerciseProgressService;
+
+    @Value("${import.use-copy:true}")
+    private boolean useCopy;
+
+    public void write(Long userId, List<WorkoutImportParser.ParsedWorkout> workouts) {
+        int exerciseCount = workouts.stream().mapToInt(workout -> workout.exercises().size()).sum();
+        transactionTemplate.executeWithoutResult(status -> {
+            Iterator<Long> workoutIds = allocateIds("workouts_id_seq", workouts.size());
+            Iterator<Long> exerciseIds = allocateIds("workout_exercises_id_seq", exerciseCount);
+            OffsetDateTime now = OffsetDateTime.now();
+
+            List<Object[]> workoutRows = new ArrayList<>(workouts.size());
+            List<Object[]> exerciseRows = new ArrayList<>(exerciseCount);
+            for (WorkoutImportParser.ParsedWorkout workout : workouts) {
+                Long workoutId = workoutIds.next();
+                exerciseProgressService.workoutSaved(userId, workoutId, workout.startTime(), workout.exercises());
+                workoutRows.add(new Object[] { workoutId, userId, workout.title(), workout.notes(),
+                        workout.startTime(), workout.endTime(), workout.isPrivate(), now, now });
+                for (WorkoutService.WorkoutExerciseInput exercise : workout.exercises()) {
+                    exerciseRows.add(new Object[] { exerciseIds.next(), workoutId, exercise.exerciseId(),
+                            exercise.sets(), exercise.reps(), exercise.weightKg(), exercise.durationSeconds(),
+                            exercise.orderIndex(), exercise.notes() });
+                }
+            }
+
+            insert("workouts", WORKOUT_COLUMNS, workoutRows);
+            insert("workout_exercises", EXERCISE_COLUMNS, exerciseRows);
+            trainingStatsService.refreshDays(userId, workouts.stream()
+                    .map(workout -> TrainingStatsService.statsDay(workout.startTime()))
+                    .collect(Collectors.toSet()));
+        });
+    }
+
+    private Iterator<Long> allocateIds(String sequence, int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> ids = new ArrayList<>(blocks * ID_BLOCK_SIZE);
+        if (blocks > 0) {
+            List<Long> highs = jdbcTemplate.queryForList(
+                    "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocks);
+            for (Long high : highs) {
+                for (long id = Math.max(1, high - ID_BLOCK_SIZE + 1); id <= high; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids.iterator();
+    }
+
+    private void insert(String table, String[] columns, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (useCopy) {
+            Boolean copied = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.isWrapperFor(PGConnection.class) && copy(connection, table, columns, rows));
+            if (Boolean.TRUE.equals(copied)) {
+                return;
+            }
+        }
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + placeholders + ")", rows);
+    }
+
+    private boolean copy(Connection connection, String table, String[] columns, List<Object[]> rows)
+            throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)");
+        try {
+            StringBuilder line = new StringBuilder(256);
+            for (Object[] row : rows) {
+                line.setLength(0);
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendCsv(line, row[i]);
+                }
+                byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+            return true;
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    // Unquoted empty means NULL in COPY's CSV format, so every value is quoted
+    private static void appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        line.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
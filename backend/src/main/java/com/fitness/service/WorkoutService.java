@@ -1,7 +1,7 @@
 package com.fitness.service;
 
-import com.fitness.model.Exercise;
-import com.fitness.model.User;
+import com.fitness.config.CacheConfig;
+import com.fitness.model.OutboxEvent;
 import com.fitness.model.Workout;
 import com.fitness.model.WorkoutExercise;
 import com.fitness.repository.ExerciseRepository;
@@ -10,28 +10,40 @@ import com.fitness.repository.WorkoutRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class WorkoutService {
 
+    // Keep sets x reps and the Epley 1RM estimate (see TrainingStatsService) within their columns
+    public static final int MAX_SETS = 100;
+    public static final int MAX_REPS = 1000;
+
     private final WorkoutRepository workoutRepository;
     private final UserRepository userRepository;
     private final ExerciseRepository exerciseRepository;
+    private final ExerciseService exerciseService;
+    private final OutboxService outboxService;
+    private final TrainingStatsService trainingStatsService;
+    private final ExerciseProgressService exerciseProgressService;
 
     @Transactional
     public Workout createWorkout(Long userId, String title, String notes, OffsetDateTime startTime,
             OffsetDateTime endTime, Boolean isPrivate, List<WorkoutExerciseInput> exercises) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         Workout workout = Workout.builder()
-                .user(user)
+                .user(userRepository.getReferenceById(userId))
                 .title(title)
                 .notes(notes)
                 .startTime(startTime)
@@ -39,14 +51,21 @@ public class WorkoutService {
                 .isPrivate(isPrivate)
                 .build();
 
-        if (exercises != null) {
-            for (WorkoutExerciseInput input : exercises) {
-                Exercise exercise = exerciseRepository.findById(input.exerciseId())
-                        .orElseThrow(() -> new RuntimeException("Exercise not found"));
+        if (exercises != null && !exercises.isEmpty()) {
+            // Validated in one lookup; rows reference exercises by proxy so nothing is re-read
+            Set<Long> exerciseIds = exercises.stream()
+                    .map(WorkoutExerciseInput::exerciseId)
+                    .collect(Collectors.toSet());
+            if (exerciseService.getExercisesByIds(exerciseIds).size() < exerciseIds.size()) {
+                throw new RuntimeException("Exercise not found");
+            }
 
+            for (WorkoutExerciseInput input : exercises) {
+                checkCount(input.sets(), MAX_SETS, "sets");
+                checkCount(input.reps(), MAX_REPS, "reps");
                 WorkoutExercise workoutExercise = WorkoutExercise.builder()
                         .workout(workout)
-                        .exercise(exercise)
+                        .exercise(exerciseRepository.getReferenceById(input.exerciseId()))
                         .sets(input.sets())
                         .reps(input.reps())
                         .weightKg(input.weightKg())
@@ -59,25 +78,61 @@ public class WorkoutService {
             }
         }
 
-        return workoutRepository.save(workout);
+        // Flushed now so the stats refresh, which reads through plain SQL, sees the new rows
+        Workout saved = workoutRepository.saveAndFlush(workout);
+        trainingStatsService.refreshDays(userId, List.of(TrainingStatsService.statsDay(startTime)));
+        exerciseProgressService.workoutSaved(userId, saved.getId(), startTime, exercises);
+        outboxService.record(OutboxEvent.EventType.WORKOUT_CREATED, userId, saved.getId());
+        return saved;
     }
 
     public Page<Workout> getUserWorkouts(Long userId, Pageable pageable) {
         return workoutRepository.findByUserId(userId, pageable);
     }
 
+    public List<Workout> getUserWorkoutsBefore(Long userId, OffsetDateTime startTime, Long id, int limit) {
+        if (startTime == null) {
+            return workoutRepository.findLatestByUserId(userId, limit);
+        }
+        return workoutRepository.findByUserIdBefore(userId, startTime, id, limit);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.WORKOUTS, key = "#id", sync = true)
     public Workout getWorkoutById(Long id) {
-        return workoutRepository.findById(id)
+        return workoutRepository.findWithExercisesById(id)
                 .orElseThrow(() -> new RuntimeException("Workout not found"));
     }
 
+    public Map<Long, Workout> getWorkoutsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        // Read detached by subscriptions, which have no open session
+        return workoutRepository.findWithExercisesByIdIn(ids).stream()
+                .collect(Collectors.toMap(Workout::getId, Function.identity()));
+    }
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WORKOUTS, key = "#workoutId")
     public void deleteWorkout(Long workoutId, Long userId) {
-        Workout workout = getWorkoutById(workoutId);
+        Workout workout = workoutRepository.findById(workoutId)
+                .orElseThrow(() -> new RuntimeException("Workout not found"));
         if (!workout.getUser().getId().equals(userId)) {
             throw new RuntimeException("Not authorized to delete this workout");
         }
+        Set<Long> exerciseIds = workout.getExercises().stream()
+                .map(workoutExercise -> workoutExercise.getExercise().getId())
+                .collect(Collectors.toSet());
         workoutRepository.delete(workout);
+        workoutRepository.flush();
+        trainingStatsService.refreshDays(userId, List.of(TrainingStatsService.statsDay(workout.getStartTime())));
+        exerciseProgressService.workoutDeleted(userId, workoutId, workout.getStartTime(), exerciseIds);
+    }
+
+    private static void checkCount(Integer value, int max, String field) {
+        if (value != null && (value < 0 || value > max)) {
+            throw new RuntimeException("Invalid " + field + ": must be between 0 and " + max);
+        }
     }
 
     // DTO for input
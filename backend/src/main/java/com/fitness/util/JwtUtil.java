@@ -1,28 +1,83 @@
 package com.fitness.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-    private String secret;
+    private final long jwtExpiration;
+    private final String activeKeyId;
+    private final Key activeKey;
+    private final Map<String, Key> verificationKeys;
+    private final JwtParser parser;
+
+    // jwt.previous-keys lists retired keys that still verify tokens, as "kid:base64secret" pairs
+    public JwtUtil(
+            @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}") String secret,
+            @Value("${jwt.expiration:86400000}") long jwtExpiration, // 1 day
+            @Value("${jwt.key-id:primary}") String keyId,
+            @Value("${jwt.previous-keys:}") String previousKeys) {
+        this.jwtExpiration = jwtExpiration;
+        this.activeKeyId = keyId;
+        this.activeKey = hmacKey(secret);
+
+        Map<String, Key> keys = new HashMap<>();
+        for (String entry : previousKeys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator > 0) {
+                keys.put(entry.substring(0, separator).trim(), hmacKey(entry.substring(separator + 1).trim()));
+            }
+        }
+        keys.put(activeKeyId, activeKey);
+        this.verificationKeys = Map.copyOf(keys);
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares this callback with a raw header type
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
 
-    @Value("${jwt.expiration:86400000}") // 1 day
-    private long jwtExpiration;
+    public Optional<TokenClaims> validateToken(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            // Every token issued here expires; one without exp would otherwise be valid forever
+            if (claims.getExpiration() == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new TokenClaims(
+                    claims.getSubject(),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -47,37 +102,43 @@ public class JwtUtil {
 
     private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(activeKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Signature and expiration are both verified by the parser, so one parse is enough
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return validateToken(token)
+                .map(claims -> claims.subject().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Tokens issued before key ids were added carry no kid and are verified with the active key
+    private Key resolveKey(String keyId) {
+        if (keyId == null) {
+            return activeKey;
+        }
+        Key key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new SignatureException("Unknown signing key: " + keyId);
+        }
+        return key;
     }
 
-    private Key getSignInKey() {
+    private static Key hmacKey(String secret) {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
         return Keys.hmacShaKeyFor(keyBytes);
     }
+
+    public record TokenClaims(String subject, Instant issuedAt, Instant expiration) {
+    }
 }
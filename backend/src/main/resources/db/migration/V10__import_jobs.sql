@@ -0,0 +1,18 @@
+-- Bulk workout imports run in the background; clients poll the job for progress
+CREATE TABLE import_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL, -- PENDING, RUNNING, COMPLETED, FAILED
+    format VARCHAR(10) NOT NULL, -- CSV, JSON
+    source VARCHAR(500),
+    processed_rows INT NOT NULL DEFAULT 0,
+    imported_workouts INT NOT NULL DEFAULT 0,
+    failed_rows INT NOT NULL DEFAULT 0,
+    errors JSONB, -- first rejected rows as [{row, message}]
+    error_message VARCHAR(1000),
+    finished_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_import_jobs_user ON import_jobs (user_id, created_at DESC);
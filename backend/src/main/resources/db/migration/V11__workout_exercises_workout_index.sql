@@ -0,0 +1,3 @@
+-- Exercise rows are always read per workout and in order: entity graph loads, the
+-- history export, and cascading deletes of a workout
+CREATE INDEX idx_workout_exercises_workout ON workout_exercises(workout_id, order_index);
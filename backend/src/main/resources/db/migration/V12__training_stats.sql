@@ -0,0 +1,93 @@
+-- Precomputed training analytics, refreshed per affected day whenever workouts change.
+-- Days are UTC calendar days of workouts.start_time. Volume is sets x reps x weight, with a
+-- missing set count taken as one set; the 1RM estimate uses the Epley formula. Entries outside the
+-- limits the API enforces (100 sets, 1000 reps) are left out, as in TrainingStatsService.
+CREATE TABLE user_daily_stats (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    day DATE NOT NULL,
+    workouts INT NOT NULL,
+    sets INT NOT NULL,
+    reps INT NOT NULL,
+    volume_kg NUMERIC(14,2) NOT NULL,
+    PRIMARY KEY (user_id, day)
+);
+
+CREATE TABLE exercise_daily_stats (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    exercise_id BIGINT NOT NULL REFERENCES exercises(id) ON DELETE CASCADE,
+    day DATE NOT NULL,
+    sets INT NOT NULL,
+    reps INT NOT NULL,
+    volume_kg NUMERIC(14,2) NOT NULL,
+    best_weight_kg NUMERIC(5,2),
+    best_1rm_kg NUMERIC(7,2),
+    PRIMARY KEY (user_id, exercise_id, day)
+);
+
+CREATE TABLE exercise_records (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    exercise_id BIGINT NOT NULL REFERENCES exercises(id) ON DELETE CASCADE,
+    best_1rm_kg NUMERIC(7,2),
+    best_1rm_day DATE,
+    best_weight_kg NUMERIC(5,2),
+    best_weight_day DATE,
+    PRIMARY KEY (user_id, exercise_id)
+);
+
+-- One row per user; its row lock also serializes concurrent refreshes for that user
+CREATE TABLE user_training_stats (
+    user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    total_workouts INT NOT NULL DEFAULT 0,
+    total_volume_kg NUMERIC(16,2) NOT NULL DEFAULT 0,
+    training_days INT NOT NULL DEFAULT 0,
+    current_streak INT NOT NULL DEFAULT 0,
+    longest_streak INT NOT NULL DEFAULT 0,
+    last_workout_day DATE,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Backfill from existing history
+INSERT INTO user_daily_stats (user_id, day, workouts, sets, reps, volume_kg)
+SELECT w.user_id, (w.start_time AT TIME ZONE 'UTC')::date, COUNT(DISTINCT w.id),
+       COALESCE(SUM(COALESCE(we.sets, 1)) FILTER (WHERE we.id IS NOT NULL), 0),
+       COALESCE(SUM(COALESCE(we.sets, 1) * we.reps), 0),
+       COALESCE(SUM(COALESCE(we.sets, 1) * we.reps * we.weight_kg), 0)
+FROM workouts w
+LEFT JOIN workout_exercises we ON we.workout_id = w.id
+    AND COALESCE(we.sets, 0) BETWEEN 0 AND 100 AND COALESCE(we.reps, 0) BETWEEN 0 AND 1000
+GROUP BY 1, 2;
+
+INSERT INTO exercise_daily_stats (user_id, exercise_id, day, sets, reps, volume_kg, best_weight_kg, best_1rm_kg)
+SELECT w.user_id, we.exercise_id, (w.start_time AT TIME ZONE 'UTC')::date,
+       SUM(COALESCE(we.sets, 1)),
+       COALESCE(SUM(COALESCE(we.sets, 1) * we.reps), 0),
+       COALESCE(SUM(COALESCE(we.sets, 1) * we.reps * we.weight_kg), 0),
+       MAX(we.weight_kg) FILTER (WHERE we.weight_kg > 0),
+       MAX(CASE WHEN we.reps = 1 THEN we.weight_kg ELSE we.weight_kg * (1 + we.reps / 30.0) END)
+           FILTER (WHERE we.weight_kg > 0 AND we.reps > 0)
+FROM workouts w
+JOIN workout_exercises we ON we.workout_id = w.id
+    AND COALESCE(we.sets, 0) BETWEEN 0 AND 100 AND COALESCE(we.reps, 0) BETWEEN 0 AND 1000
+GROUP BY 1, 2, 3;
+
+INSERT INTO exercise_records (user_id, exercise_id, best_1rm_kg, best_1rm_day, best_weight_kg, best_weight_day)
+SELECT user_id, exercise_id,
+       (ARRAY_AGG(best_1rm_kg ORDER BY best_1rm_kg DESC NULLS LAST, day))[1],
+       (ARRAY_AGG(day ORDER BY best_1rm_kg DESC NULLS LAST, day) FILTER (WHERE best_1rm_kg IS NOT NULL))[1],
+       (ARRAY_AGG(best_weight_kg ORDER BY best_weight_kg DESC NULLS LAST, day))[1],
+       (ARRAY_AGG(day ORDER BY best_weight_kg DESC NULLS LAST, day) FILTER (WHERE best_weight_kg IS NOT NULL))[1]
+FROM exercise_daily_stats
+GROUP BY user_id, exercise_id
+HAVING MAX(best_1rm_kg) IS NOT NULL OR MAX(best_weight_kg) IS NOT NULL;
+
+INSERT INTO user_training_stats (user_id, total_workouts, total_volume_kg, training_days, current_streak,
+                                 longest_streak, last_workout_day)
+SELECT user_id, SUM(workouts), SUM(volume_kg), SUM(streak),
+       (ARRAY_AGG(streak ORDER BY last_day DESC))[1], MAX(streak), MAX(last_day)
+FROM (
+    SELECT user_id, SUM(workouts) AS workouts, SUM(volume_kg) AS volume_kg, COUNT(*) AS streak, MAX(day) AS last_day
+    FROM (SELECT *, day - (ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY day))::int AS run
+          FROM user_daily_stats) days
+    GROUP BY user_id, run
+) runs
+GROUP BY user_id;
@@ -0,0 +1,14 @@
+-- Likes, comments and follows arriving within one time bucket fold into a single notification
+-- per group ("12 people liked your workout"); the unique key is the ON CONFLICT target
+ALTER TABLE notifications ADD COLUMN group_key VARCHAR(255);
+ALTER TABLE notifications ADD COLUMN actor_count INT NOT NULL DEFAULT 1;
+-- Most recent distinct actors of a group, newest first and capped, so a repeat is not counted twice
+ALTER TABLE notifications ADD COLUMN actor_ids BIGINT[];
+CREATE UNIQUE INDEX uq_notifications_user_group ON notifications(user_id, group_key);
+
+-- Newest first, as the notifications page lists them
+CREATE INDEX idx_notifications_user_updated ON notifications(user_id, updated_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_notifications_user;
+
+-- Unread rows are a small slice of the table; counting them and marking them read touch only this index
+CREATE INDEX idx_notifications_unread ON notifications(user_id) WHERE is_read = FALSE;
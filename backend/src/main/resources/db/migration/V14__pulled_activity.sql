@@ -0,0 +1,12 @@
+-- Activity that was not fanned out because its author was over the celebrity threshold at the
+-- time; followers keep reading it at query time even after the author drops below the threshold
+ALTER TABLE activity_feed ADD COLUMN fanned_out BOOLEAN NOT NULL DEFAULT TRUE;
+
+-- Only the pulled slice of the table is indexed, so probing a followee for it is cheap
+CREATE INDEX idx_feed_pulled ON activity_feed(origin_user_id, created_at DESC, id DESC) WHERE NOT fanned_out;
+
+-- Existing activity that reached no follower's timeline although its author has followers
+UPDATE activity_feed af SET fanned_out = FALSE
+WHERE af.visibility IS DISTINCT FROM 'PRIVATE'
+AND EXISTS (SELECT 1 FROM follows f WHERE f.followee_id = af.origin_user_id)
+AND NOT EXISTS (SELECT 1 FROM home_timeline ht WHERE ht.activity_id = af.id AND ht.user_id <> af.origin_user_id);
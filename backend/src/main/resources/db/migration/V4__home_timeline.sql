@@ -0,0 +1,25 @@
+-- Materialized home timeline, filled by fan-out-on-write when an activity is published
+CREATE TABLE home_timeline (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    activity_id BIGINT NOT NULL REFERENCES activity_feed(id) ON DELETE CASCADE,
+    origin_user_id BIGINT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (user_id, activity_id)
+);
+
+CREATE INDEX idx_home_timeline_user_created ON home_timeline(user_id, created_at DESC, activity_id DESC);
+CREATE INDEX idx_home_timeline_user_origin ON home_timeline(user_id, origin_user_id);
+
+-- Fan-out-on-read path for followees with very large follower counts
+CREATE INDEX idx_feed_origin_created ON activity_feed(origin_user_id, created_at DESC, id DESC);
+
+-- Backfill timelines from the existing activity feed
+INSERT INTO home_timeline (user_id, activity_id, origin_user_id, created_at)
+SELECT af.origin_user_id, af.id, af.origin_user_id, COALESCE(af.created_at, CURRENT_TIMESTAMP)
+FROM activity_feed af
+UNION
+SELECT f.follower_id, af.id, af.origin_user_id, COALESCE(af.created_at, CURRENT_TIMESTAMP)
+FROM activity_feed af
+JOIN follows f ON f.followee_id = af.origin_user_id
+WHERE af.visibility IS DISTINCT FROM 'PRIVATE'
+ON CONFLICT DO NOTHING;
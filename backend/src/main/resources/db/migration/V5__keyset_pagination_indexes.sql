@@ -0,0 +1,6 @@
+-- Seek indexes for cursor pagination; each matches the ORDER BY of its connection query
+CREATE INDEX idx_workouts_user_start ON workouts(user_id, start_time DESC, id DESC);
+DROP INDEX IF EXISTS idx_workouts_user;
+
+CREATE INDEX idx_comments_parent_created ON comments(parent_type, parent_id, created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
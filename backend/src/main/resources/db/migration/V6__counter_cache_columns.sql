@@ -0,0 +1,23 @@
+-- Denormalized like/comment counters, maintained by LikeService and CommentService
+ALTER TABLE workouts ADD COLUMN like_count INT NOT NULL DEFAULT 0;
+ALTER TABLE workouts ADD COLUMN comment_count INT NOT NULL DEFAULT 0;
+ALTER TABLE routines ADD COLUMN like_count INT NOT NULL DEFAULT 0;
+ALTER TABLE routines ADD COLUMN comment_count INT NOT NULL DEFAULT 0;
+
+UPDATE workouts w SET like_count = l.cnt
+FROM (SELECT parent_id, COUNT(*) AS cnt FROM likes WHERE parent_type = 'WORKOUT' GROUP BY parent_id) l
+WHERE l.parent_id = w.id;
+
+UPDATE workouts w SET comment_count = c.cnt
+FROM (SELECT parent_id, COUNT(*) AS cnt FROM comments
+      WHERE parent_type = 'WORKOUT' AND deleted_at IS NULL GROUP BY parent_id) c
+WHERE c.parent_id = w.id;
+
+UPDATE routines r SET like_count = l.cnt
+FROM (SELECT parent_id, COUNT(*) AS cnt FROM likes WHERE parent_type = 'ROUTINE' GROUP BY parent_id) l
+WHERE l.parent_id = r.id;
+
+UPDATE routines r SET comment_count = c.cnt
+FROM (SELECT parent_id, COUNT(*) AS cnt FROM comments
+      WHERE parent_type = 'ROUTINE' AND deleted_at IS NULL GROUP BY parent_id) c
+WHERE c.parent_id = r.id;
@@ -0,0 +1,9 @@
+-- Striped follower/following deltas; summed with users.*_count on read and folded back periodically
+CREATE TABLE user_counter_shards (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    shard SMALLINT NOT NULL,
+    followers_delta INT NOT NULL DEFAULT 0,
+    following_delta INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, shard)
+);
+
@@ -0,0 +1,15 @@
+-- Transactional outbox: mutations record what happened, a background dispatcher
+-- turns events into activity_feed and notifications rows
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL, -- WORKOUT_CREATED, USER_FOLLOWED, LIKED, COMMENTED
+    actor_id BIGINT NOT NULL,
+    subject_id BIGINT NOT NULL, -- id of the workout, follow, like or comment row the event is about
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    failed_at TIMESTAMP WITH TIME ZONE,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_outbox_pending ON outbox_events (available_at, id) WHERE failed_at IS NULL;
@@ -0,0 +1,8 @@
+-- Workouts and routines are written together with their exercise rows. Hibernate now
+-- takes ids for these tables from pooled sequences (allocationSize = 50) instead of
+-- IDENTITY, so the rows of one aggregate go out as a single JDBC batch. The column
+-- defaults remain for rows inserted with plain SQL; every nextval reserves its own block.
+ALTER SEQUENCE workouts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE workout_exercises_id_seq INCREMENT BY 50;
+ALTER SEQUENCE routines_id_seq INCREMENT BY 50;
+ALTER SEQUENCE routine_exercises_id_seq INCREMENT BY 50;
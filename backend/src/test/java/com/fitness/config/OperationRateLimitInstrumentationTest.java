@@ -0,0 +1,150 @@
+package com.fitness.config;
+
+import com.fitness.model.User;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OperationRateLimitInstrumentationTest {
+
+    private static final GraphQLSchema SCHEMA = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("""
+                    type Query { me: String }
+                    type Mutation { login(username: String): String, signup(username: String): String }
+                    """),
+            RuntimeWiring.newRuntimeWiring().build());
+
+    private final RateLimiter rateLimiter = mock(RateLimiter.class);
+
+    @Test
+    void disabledLimitLeavesAnonymousRequestsAlone() {
+        ExecutionInput input = intercept(new OperationRateLimitInstrumentation(rateLimiter, false, 10, 60, 1),
+                Map.of(RateLimitFilter.CLIENT_ADDRESS_ATTRIBUTE, "10.0.0.1"));
+
+        assertThat(input.getGraphQLContext().hasKey(clientKey())).isFalse();
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    void anonymousRequestsAreKeyedByAddress() {
+        ExecutionInput input = intercept(new OperationRateLimitInstrumentation(rateLimiter, true, 10, 60, 1),
+                Map.of(RateLimitFilter.CLIENT_ADDRESS_ATTRIBUTE, "10.0.0.1"));
+
+        assertThat(input.getGraphQLContext().<String>get(clientKey())).isEqualTo("ip:10.0.0.1");
+    }
+
+    @Test
+    void requestsWithoutAnAddressAreNotCharged() {
+        ExecutionInput input = intercept(new OperationRateLimitInstrumentation(rateLimiter, true, 10, 60, 1),
+                Map.of());
+
+        assertThat(input.getGraphQLContext().hasKey(clientKey())).isFalse();
+    }
+
+    @Test
+    void webSocketOperationsAreKeyedBySessionUserElseByPeerAddress() {
+        OperationRateLimitInstrumentation instrumentation =
+                new OperationRateLimitInstrumentation(rateLimiter, true, 10, 60, 1);
+        WebSocketSessionInfo session = mock(WebSocketSessionInfo.class);
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        when(session.getAttributes()).thenReturn(sessionAttributes);
+        when(session.getRemoteAddress()).thenReturn(new InetSocketAddress("10.0.0.2", 4000));
+
+        assertThat(intercept(instrumentation, webSocketRequest(session)).getGraphQLContext()
+                .<String>get(clientKey())).isEqualTo("ip:10.0.0.2");
+
+        sessionAttributes.put(WebSocketAuthInterceptor.USER_KEY, User.builder().id(4L).build());
+        assertThat(intercept(instrumentation, webSocketRequest(session)).getGraphQLContext()
+                .<String>get(clientKey())).isEqualTo("user:4");
+    }
+
+    @Test
+    void chargesEveryTopLevelField() {
+        ExecutionResult result = execute(new OperationRateLimitInstrumentation(rateLimiter, true, 10, 60, 2),
+                "mutation { login(username: \"a\") signup(username: \"b\") }");
+
+        assertThat(result.getErrors()).isEmpty();
+        verify(rateLimiter).tryAcquire(eq("operation"), eq("ip:10.0.0.1"), eq(40), any());
+    }
+
+    @Test
+    void rejectsOperationsCostingMoreThanTheBurst() {
+        ExecutionResult result = execute(new OperationRateLimitInstrumentation(rateLimiter, true, 10, 60, 5),
+                "mutation { a: login(username: \"a\") b: login(username: \"b\") c: login(username: \"c\") "
+                        + "d: login(username: \"d\") }");
+
+        assertThat(result.getErrors()).extracting(GraphQLError::getMessage)
+                .containsExactly("Operation cost 80 exceeds the rate limit burst of 60");
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    void limitsPasswordChecksPerOperationEvenInFragments() {
+        ExecutionResult result = execute(new OperationRateLimitInstrumentation(rateLimiter, true, 10, 60, 1),
+                "mutation { login(username: \"a\") ...Again } "
+                        + "fragment Again on Mutation { b: login(username: \"b\") }");
+
+        assertThat(result.getErrors()).extracting(GraphQLError::getMessage)
+                .containsExactly("At most 1 login or signup fields are allowed per operation");
+        verifyNoInteractions(rateLimiter);
+    }
+
+    private ExecutionResult execute(OperationRateLimitInstrumentation instrumentation, String query) {
+        when(rateLimiter.tryAcquire(anyString(), anyString(), anyInt(), any())).thenReturn(0L);
+        return GraphQL.newGraphQL(SCHEMA).instrumentation(instrumentation).build()
+                .execute(ExecutionInput.newExecutionInput(query)
+                        .graphQLContext(Map.of(clientKey(), "ip:10.0.0.1")).build());
+    }
+
+    private static WebSocketGraphQlRequest webSocketRequest(WebSocketSessionInfo session) {
+        return new WebSocketGraphQlRequest(URI.create("http://localhost/graphql-ws"), new HttpHeaders(),
+                Map.of("query", "{ me { id } }"), "1", null, session);
+    }
+
+    private static ExecutionInput intercept(OperationRateLimitInstrumentation instrumentation,
+            Map<String, Object> attributes) {
+        return intercept(instrumentation, new WebGraphQlRequest(URI.create("http://localhost/graphql"),
+                new HttpHeaders(), null, new HashMap<>(attributes), Map.of("query", "{ me { id } }"), "1", null));
+    }
+
+    private static ExecutionInput intercept(OperationRateLimitInstrumentation instrumentation,
+            WebGraphQlRequest request) {
+        AtomicReference<ExecutionInput> input = new AtomicReference<>();
+        instrumentation.intercept(request, next -> {
+            input.set(next.toExecutionInput());
+            return Mono.empty();
+        }).block();
+        return input.get();
+    }
+
+    private static String clientKey() {
+        return OperationRateLimitInstrumentation.class.getName() + ".client";
+    }
+}
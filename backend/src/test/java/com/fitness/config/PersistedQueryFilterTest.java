@@ -0,0 +1,205 @@
+package com.fitness.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PersistedQueryFilterTest {
+
+    private static final String QUERY = "{ me { id } }";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void registersAQueryAndExpandsItsHashLater() throws Exception {
+        PersistedQueryFilter filter = filter(false, "", DataSize.ofMegabytes(1));
+        filter(filter, body(sha256(QUERY), QUERY));
+
+        MockFilterChain chain = filter(filter, body(sha256(QUERY), null));
+
+        assertThat(forwarded(chain).path("query").asText()).isEqualTo(QUERY);
+    }
+
+    @Test
+    void answersUnknownHashesWithNotFound() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        MockFilterChain chain = filter(filter(false, "", DataSize.ofMegabytes(1)), body(sha256(QUERY), null),
+                response);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(errorCode(response)).isEqualTo("PERSISTED_QUERY_NOT_FOUND");
+    }
+
+    @Test
+    void rejectsAHashThatDoesNotMatchTheQuery() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        MockFilterChain chain = filter(filter(false, "", DataSize.ofMegabytes(1)),
+                body(sha256("{ other }"), QUERY), response);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(errorCode(response)).isEqualTo("INVALID_SHA");
+    }
+
+    @Test
+    void allowlistRunsOnlyManifestQueries() throws Exception {
+        PersistedQueryFilter filter = filter(true, manifest(QUERY), DataSize.ofMegabytes(1));
+
+        assertThat(forwarded(filter(filter, body(sha256(QUERY), null))).path("query").asText()).isEqualTo(QUERY);
+
+        MockHttpServletResponse plain = new MockHttpServletResponse();
+        filter(filter, body(null, QUERY), plain);
+        assertThat(plain.getStatus()).isEqualTo(400);
+        assertThat(errorCode(plain)).isEqualTo("PERSISTED_QUERY_REQUIRED");
+
+        // Sending the text along does not register a query outside the manifest
+        String other = "{ other }";
+        MockHttpServletResponse registering = new MockHttpServletResponse();
+        filter(filter, body(sha256(other), other), registering);
+        assertThat(errorCode(registering)).isEqualTo("PERSISTED_QUERY_NOT_FOUND");
+        MockHttpServletResponse replay = new MockHttpServletResponse();
+        filter(filter, body(sha256(other), null), replay);
+        assertThat(errorCode(replay)).isEqualTo("PERSISTED_QUERY_NOT_FOUND");
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimitWithOrWithoutAContentLength() throws Exception {
+        PersistedQueryFilter filter = filter(false, "", DataSize.ofBytes(32));
+        byte[] body = body(null, "{ me { id name email bio avatarUrl } }");
+
+        MockHttpServletResponse declared = new MockHttpServletResponse();
+        MockFilterChain chain = filter(filter, body, declared);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(declared.getStatus()).isEqualTo(413);
+
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/graphql") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setServletPath("/graphql");
+        chunked.setContent(body);
+        MockHttpServletResponse undeclared = new MockHttpServletResponse();
+        filter.doFilter(chunked, undeclared, new MockFilterChain());
+        assertThat(undeclared.getStatus()).isEqualTo(413);
+    }
+
+    @Test
+    void allowlistAppliesToWebSocketOperations() throws Exception {
+        PersistedQueryFilter filter = filter(true, manifest(QUERY), DataSize.ofMegabytes(1));
+        AtomicBoolean executed = new AtomicBoolean();
+        WebGraphQlInterceptor.Chain chain = request -> {
+            executed.set(true);
+            return Mono.empty();
+        };
+
+        filter.intercept(webSocketRequest(QUERY), chain).block();
+        assertThat(executed).isTrue();
+
+        executed.set(false);
+        WebGraphQlResponse rejected = filter.intercept(webSocketRequest("subscription { notificationAdded { id } }"),
+                chain).block();
+        assertThat(executed).isFalse();
+        assertThat(rejected.getErrors()).singleElement().satisfies(error ->
+                assertThat(error.getExtensions()).containsEntry("code", "PERSISTED_QUERY_REQUIRED"));
+    }
+
+    private static WebSocketGraphQlRequest webSocketRequest(String query) {
+        return new WebSocketGraphQlRequest(URI.create("http://localhost/graphql-ws"), new HttpHeaders(),
+                Map.of("query", query), "1", null, mock(WebSocketSessionInfo.class));
+    }
+
+    private PersistedQueryFilter filter(boolean allowlistOnly, String manifest, DataSize maxBodySize)
+            throws IOException {
+        return new PersistedQueryFilter(objectMapper, new DefaultResourceLoader(), new SimpleMeterRegistry(),
+                "/graphql", allowlistOnly, manifest, 100, maxBodySize);
+    }
+
+    private MockFilterChain filter(PersistedQueryFilter filter, byte[] body) throws Exception {
+        return filter(filter, body, new MockHttpServletResponse());
+    }
+
+    private MockFilterChain filter(PersistedQueryFilter filter, byte[] body, MockHttpServletResponse response)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setServletPath("/graphql");
+        request.setContent(body);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return chain;
+    }
+
+    private JsonNode forwarded(MockFilterChain chain) throws IOException {
+        assertThat(chain.getRequest()).isNotNull();
+        return objectMapper.readTree(chain.getRequest().getInputStream());
+    }
+
+    private String errorCode(MockHttpServletResponse response) throws IOException {
+        return objectMapper.readTree(response.getContentAsByteArray())
+                .path("errors").path(0).path("extensions").path("code").asText();
+    }
+
+    private byte[] body(String hash, String query) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        if (query != null) {
+            body.put("query", query);
+        }
+        if (hash != null) {
+            body.put("extensions", Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    private String manifest(String query) throws IOException {
+        Path file = dir.resolve("persisted-query-manifest.json");
+        Files.write(file, objectMapper.writeValueAsBytes(Map.of("format", "apollo-persisted-query-manifest",
+                "version", 1, "operations", List.of(Map.of("id", sha256(query), "name", "Me", "type", "query",
+                        "body", query)))));
+        return file.toUri().toString();
+    }
+
+    private static String sha256(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.fitness.config;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCostInstrumentationTest {
+
+    private static final GraphQLSchema SCHEMA = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("""
+                    type Query {
+                        workouts(size: Int): WorkoutPage
+                        user(id: ID): User
+                    }
+                    type WorkoutPage { content: [Workout], totalElements: Int }
+                    type Workout { id: ID, exercises: [Exercise] }
+                    type Exercise { name: String }
+                    type User { name: String, workouts(limit: Int): [Workout] }
+                    """),
+            RuntimeWiring.newRuntimeWiring().build());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void multipliesByThePageSizeAndDefaultsUnsizedLists() {
+        // workouts 1 + content 20 + exercises 20 x 10
+        assertThat(cost("{ workouts(size: 20) { content { id exercises { name } } } }")).isEqualTo(221);
+    }
+
+    @Test
+    void clampsPageSizesLikeTheResolvers() {
+        assertThat(cost("{ workouts(size: 1000) { content { id } } }")).isEqualTo(51);
+    }
+
+    @Test
+    void readsPageSizesFromVariables() {
+        assertThat(cost("query($n: Int) { workouts(size: $n) { content { id } } }", Map.of("n", 5))).isEqualTo(6);
+    }
+
+    @Test
+    void countsFragmentsAndIgnoresIntrospection() {
+        assertThat(cost("{ user(id: 1) { ...Lifts ... on User { name } } } "
+                + "fragment Lifts on User { workouts(limit: 3) { id } }")).isEqualTo(4);
+        assertThat(cost("{ __schema { types { name } } }")).isZero();
+    }
+
+    @Test
+    void rejectsOperationsOverBudgetBeforeFetching() {
+        ExecutionResult result = execute(new QueryCostInstrumentation(200, 10, 50, 10, meterRegistry),
+                "{ workouts(size: 20) { content { id exercises { name } } } }", Map.of());
+
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getMessage()).isEqualTo("Query cost 221 exceeds the budget of 200");
+            assertThat(error.getExtensions()).containsEntry("cost", 221L).containsEntry("maxCost", 200);
+        });
+        assertThat(meterRegistry.get("graphql.operation.cost").tag("outcome", "rejected").summary().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejectsOperationsThatAreTooDeep() {
+        ExecutionResult result = execute(new QueryCostInstrumentation(10_000, 2, 50, 10, meterRegistry),
+                "{ workouts(size: 1) { content { exercises { name } } } }", Map.of());
+
+        assertThat(result.getErrors()).extracting(GraphQLError::getMessage)
+                .containsExactly("Query depth 3 exceeds the limit of 2");
+    }
+
+    private long cost(String query) {
+        return cost(query, Map.of());
+    }
+
+    private long cost(String query, Map<String, Object> variables) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutionResult result = execute(new QueryCostInstrumentation(10_000, 10, 50, 10, registry), query,
+                variables);
+        assertThat(result.getErrors()).isEmpty();
+        return (long) registry.get("graphql.operation.cost").tag("outcome", "accepted").summary().totalAmount();
+    }
+
+    private static ExecutionResult execute(QueryCostInstrumentation instrumentation, String query,
+            Map<String, Object> variables) {
+        return GraphQL.newGraphQL(SCHEMA).instrumentation(instrumentation).build()
+                .execute(ExecutionInput.newExecutionInput(query).variables(variables).build());
+    }
+}
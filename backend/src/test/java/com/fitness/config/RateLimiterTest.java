@@ -0,0 +1,123 @@
+package com.fitness.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The Redis store runs the real script against an embedded Redis server.
+ */
+class RateLimiterTest {
+
+    private static final RateLimiter.Limit LIMIT = new RateLimiter.Limit(1, 5);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void allowsTheBurstThenRejectsWithTheWaitUntilTheNextToken() {
+        RateLimiter rateLimiter = limiter("local", template(connectionFactory));
+
+        assertThat(IntStream.range(0, 5).mapToLong(i -> rateLimiter.tryAcquire("ip", "a", 1, LIMIT)))
+                .containsOnly(0L);
+        assertThat(rateLimiter.tryAcquire("ip", "a", 1, LIMIT)).isBetween(1L, 1000L);
+        assertThat(meterRegistry.counter("rate_limit.rejected", "scope", "ip").count()).isEqualTo(1);
+    }
+
+    @Test
+    void chargesCostsAndKeepsKeysAndScopesApart() {
+        RateLimiter rateLimiter = limiter("local", template(connectionFactory));
+
+        assertThat(rateLimiter.tryAcquire("operation", "a", 4, LIMIT)).isZero();
+        assertThat(rateLimiter.tryAcquire("operation", "a", 2, LIMIT)).isBetween(1L, 1000L);
+        assertThat(rateLimiter.tryAcquire("operation", "b", 2, LIMIT)).isZero();
+        assertThat(rateLimiter.tryAcquire("ip", "a", 2, LIMIT)).isZero();
+    }
+
+    @Test
+    void rejectsCostsAboveTheBurstWithoutChargingThem() {
+        RateLimiter rateLimiter = limiter("local", template(connectionFactory));
+
+        assertThat(rateLimiter.tryAcquire("operation", "a", 50, LIMIT)).isPositive();
+        assertThat(rateLimiter.tryAcquire("operation", "a", 5, LIMIT)).isZero();
+    }
+
+    @Test
+    void redisStoreSharesBucketsBetweenInstances() {
+        String key = UUID.randomUUID().toString();
+        RateLimiter first = limiter("redis", template(connectionFactory));
+        RateLimiter second = limiter("redis", template(connectionFactory));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat((i % 2 == 0 ? first : second).tryAcquire("ip", key, 1, LIMIT)).isZero();
+        }
+
+        assertThat(second.tryAcquire("ip", key, 1, LIMIT)).isBetween(1L, 1000L);
+        assertThat(first.tryAcquire("ip", key, 1, LIMIT)).isBetween(1L, 1000L);
+    }
+
+    @Test
+    void redisStoreFallsBackToLocalBucketsWhileRedisIsDown() throws IOException {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", freePort()));
+        unreachable.afterPropertiesSet();
+        unreachable.start();
+        try {
+            RateLimiter rateLimiter = limiter("redis", template(unreachable));
+
+            assertThat(IntStream.range(0, 5).mapToLong(i -> rateLimiter.tryAcquire("ip", "a", 1, LIMIT)))
+                    .containsOnly(0L);
+            assertThat(rateLimiter.tryAcquire("ip", "a", 1, LIMIT)).isBetween(1L, 1000L);
+        } finally {
+            unreachable.destroy();
+        }
+    }
+
+    private RateLimiter limiter(String store, StringRedisTemplate redisTemplate) {
+        return new RateLimiter(redisTemplate, meterRegistry, store, 1000, Duration.ofMinutes(10),
+                Duration.ofSeconds(30));
+    }
+
+    private static StringRedisTemplate template(LettuceConnectionFactory connectionFactory) {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.fitness.config;
+
+import com.fitness.model.Exercise;
+import com.fitness.model.User;
+import com.fitness.model.Workout;
+import com.fitness.model.WorkoutExercise;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application instances share one far tier, backed here by an in-memory stand-in for Redis
+ * so the real serialization path is exercised.
+ */
+class TwoLevelCacheTest {
+
+    private final InMemoryCacheWriter redis = new InMemoryCacheWriter();
+    private final List<String> published = new ArrayList<>();
+    private final TwoLevelCacheManager first = cacheManager(
+            (cacheName, key) -> published.add(cacheName + "|" + key));
+    private final TwoLevelCacheManager second = cacheManager((cacheName, key) -> {
+    });
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheNearTier() {
+        AtomicInteger loads = new AtomicInteger();
+        Cache users = first.getCache(CacheConfig.USERS);
+
+        users.get(4L, () -> user(loads));
+        User cached = users.get(4L, () -> user(loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(cached.getPasswordHash()).isEqualTo("secret-hash");
+    }
+
+    @Test
+    void otherInstancesReadTheFarTierWithoutCredentials() {
+        AtomicInteger loads = new AtomicInteger();
+        first.getCache(CacheConfig.USERS).get(4L, () -> user(loads));
+
+        User remote = second.getCache(CacheConfig.USERS).get(4L, () -> user(loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(remote.getUsername()).isEqualTo("alice");
+        assertThat(remote.getCreatedAt()).isEqualTo(OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC));
+        assertThat(remote.getPasswordHash()).isNull();
+        assertThat(redis.values()).noneMatch(json -> json.contains("secret-hash"));
+    }
+
+    @Test
+    void workoutsKeepTheirExercisesAndReferences() {
+        Workout workout = Workout.builder().id(7L).user(User.builder().id(4L).build()).title("Legs")
+                .startTime(OffsetDateTime.now(ZoneOffset.UTC)).likeCount(3).build();
+        workout.getExercises().add(WorkoutExercise.builder().id(70L).workout(workout)
+                .exercise(Exercise.builder().id(11L).build()).sets(5).weightKg(new BigDecimal("102.5"))
+                .orderIndex(0).build());
+        first.getCache(CacheConfig.WORKOUTS).put(7L, workout);
+
+        Workout remote = second.getCache(CacheConfig.WORKOUTS).get(7L, Workout.class);
+
+        assertThat(remote.getUser().getId()).isEqualTo(4L);
+        assertThat(remote.getLikeCount()).isEqualTo(3);
+        assertThat(remote.getExercises()).singleElement().satisfies(exercise -> {
+            assertThat(exercise.getExercise().getId()).isEqualTo(11L);
+            assertThat(exercise.getWeightKg()).isEqualByComparingTo("102.5");
+            assertThat(exercise.getWorkout()).isSameAs(remote);
+        });
+    }
+
+    @Test
+    void evictionDropsBothTiersAndNotifiesOtherInstances() {
+        AtomicInteger loads = new AtomicInteger();
+        first.getCache(CacheConfig.USERS).get(4L, () -> user(loads));
+        second.getCache(CacheConfig.USERS).get(4L, () -> user(loads));
+
+        first.getCache(CacheConfig.USERS).evict(4L);
+        second.evictNear(CacheConfig.USERS, "4");
+
+        assertThat(redis.values()).isEmpty();
+        assertThat(published).containsExactly("users|4");
+        second.getCache(CacheConfig.USERS).get(4L, () -> user(loads));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictionInsideATransactionWaitsForTheCommit() {
+        AtomicInteger loads = new AtomicInteger();
+        Cache users = first.getCache(CacheConfig.USERS);
+        users.get(4L, () -> user(loads));
+        TransactionSynchronizationManager.initSynchronization();
+
+        users.evict(4L);
+
+        // A reader racing the transaction must not re-cache the row it is about to replace
+        assertThat(users.get(4L)).isNotNull();
+        assertThat(redis.values()).hasSize(1);
+        assertThat(published).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(users.get(4L)).isNull();
+        assertThat(redis.values()).isEmpty();
+        assertThat(published).containsExactly("users|4");
+    }
+
+    @Test
+    void loadsThatOverlapAnEvictionAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        Cache users = first.getCache(CacheConfig.USERS);
+
+        // The loader read the row just before a committing update evicted the key
+        User stale = users.get(4L, () -> {
+            User user = user(loads);
+            users.evict(4L);
+            return user;
+        });
+
+        assertThat(stale).isNotNull();
+        assertThat(redis.values()).isEmpty();
+        assertThat(users.get(4L)).isNull();
+        users.get(4L, () -> user(loads));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void farHitsThatOverlapAnEvictionAreNotCopiedToTheNearTier() {
+        first.getCache(CacheConfig.USERS).get(4L, () -> user(new AtomicInteger()));
+        Cache users = second.getCache(CacheConfig.USERS);
+        redis.afterGet = () -> users.evict(4L);
+
+        assertThat(users.get(4L)).isNotNull();
+
+        redis.afterGet = () -> {
+        };
+        assertThat(users.get(4L)).isNull();
+    }
+
+    @Test
+    void unreadableFarEntriesAreDiscardedAndReloaded() {
+        redis.put("fitness:users", "fitness:users::4".getBytes(StandardCharsets.UTF_8),
+                "¬í\u0000\u0005sr".getBytes(StandardCharsets.ISO_8859_1), null);
+        AtomicInteger loads = new AtomicInteger();
+
+        User user = first.getCache(CacheConfig.USERS).get(4L, () -> user(loads));
+
+        assertThat(user.getUsername()).isEqualTo("alice");
+        assertThat(loads).hasValue(1);
+        assertThat(redis.values()).singleElement().asString().contains("\"username\":\"alice\"");
+    }
+
+    @Test
+    void unreadCountsRoundTrip() {
+        first.getCache(CacheConfig.UNREAD_NOTIFICATIONS).put(4L, 12L);
+
+        assertThat(second.getCache(CacheConfig.UNREAD_NOTIFICATIONS).get(4L, Long.class)).isEqualTo(12L);
+    }
+
+    private static User user(AtomicInteger loads) {
+        loads.incrementAndGet();
+        User user = User.builder().id(4L).username("alice").email("alice@example.com")
+                .passwordHash("secret-hash").build();
+        user.setCreatedAt(OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC));
+        return user;
+    }
+
+    private TwoLevelCacheManager cacheManager(BiConsumer<String, String> publisher) {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(List.of(CacheConfig.USERS,
+                CacheConfig.WORKOUTS, CacheConfig.UNREAD_NOTIFICATIONS), Caffeine.newBuilder().maximumSize(100),
+                CacheConfig.farCacheManager(redis, Duration.ofMinutes(10)), new FarTierGuard(Duration.ofSeconds(30)),
+                publisher, new SimpleMeterRegistry());
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    private static final class InMemoryCacheWriter implements RedisCacheWriter {
+
+        private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+        private volatile Runnable afterGet = () -> {
+        };
+
+        List<String> values() {
+            return entries.values().stream().map(value -> new String(value, StandardCharsets.UTF_8)).toList();
+        }
+
+        @Override
+        public byte[] get(String name, byte[] key) {
+            byte[] value = entries.get(string(key));
+            afterGet.run();
+            return value;
+        }
+
+        @Override
+        public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+            return CompletableFuture.completedFuture(get(name, key));
+        }
+
+        @Override
+        public void put(String name, byte[] key, byte[] value, Duration ttl) {
+            entries.put(string(key), value);
+        }
+
+        @Override
+        public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+            put(name, key, value, ttl);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+            return entries.putIfAbsent(string(key), value);
+        }
+
+        @Override
+        public void remove(String name, byte[] key) {
+            entries.remove(string(key));
+        }
+
+        @Override
+        public void clean(String name, byte[] pattern) {
+            String prefix = string(pattern).replace("*", "");
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+
+        @Override
+        public void clearStatistics(String name) {
+        }
+
+        @Override
+        public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+            return this;
+        }
+
+        @Override
+        public CacheStatistics getCacheStatistics(String cacheName) {
+            return CacheStatisticsCollector.none().getCacheStatistics(cacheName);
+        }
+
+        private static String string(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
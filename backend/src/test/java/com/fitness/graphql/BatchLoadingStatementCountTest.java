@@ -0,0 +1,173 @@
+package com.fitness.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.TestcontainersConfiguration;
+import com.fitness.service.ExerciseCatalog;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Lazy associations on a page are resolved through batch loaders, so the number of SQL
+ * statements a query costs does not depend on how many rows the page holds.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class BatchLoadingStatementCountTest {
+
+    private static final String USER_WORKOUTS = """
+            query($userId: ID) {
+              userWorkouts(userId: $userId, page: 0, size: 50) {
+                content { title user { username } exercises { exercise { name createdBy { username } } } }
+              }
+            }""";
+
+    private static final String COMMENTS = """
+            query($parentId: ID!) {
+              comments(parentType: WORKOUT, parentId: $parentId, page: 0, size: 50) {
+                content { content user { username } }
+              }
+            }""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ExerciseCatalog exerciseCatalog;
+
+    private Statistics statistics;
+    private Long exerciseWithCreator;
+    private Long exerciseWithoutCreator;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Long creator = createUser();
+        exerciseWithCreator = createExercise(creator);
+        exerciseWithoutCreator = createExercise(null);
+        exerciseCatalog.refresh();
+    }
+
+    @Test
+    void workoutPageCostsTheSameForOneOrManyWorkouts() throws Exception {
+        Long smallUser = createUser();
+        createWorkouts(smallUser, 1);
+        Long largeUser = createUser();
+        createWorkouts(largeUser, 20);
+
+        long small = statementsFor(USER_WORKOUTS, "userId", smallUser, 1);
+        long large = statementsFor(USER_WORKOUTS, "userId", largeUser, 20);
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void commentPageCostsTheSameForOneOrManyAuthors() throws Exception {
+        Long owner = createUser();
+        Long quietWorkout = createWorkouts(owner, 1).get(0);
+        Long busyWorkout = createWorkouts(owner, 1).get(0);
+        comment(quietWorkout, createUser());
+        for (int i = 0; i < 20; i++) {
+            comment(busyWorkout, createUser());
+        }
+
+        long small = statementsFor(COMMENTS, "parentId", quietWorkout, 1);
+        long large = statementsFor(COMMENTS, "parentId", busyWorkout, 20);
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void missingCreatorResolvesToNullWithoutFailingTheBatch() throws Exception {
+        Long user = createUser();
+        createWorkouts(user, 1);
+
+        JsonNode exercises = execute(USER_WORKOUTS, "userId", user)
+                .at("/data/userWorkouts/content/0/exercises");
+
+        assertThat(exercises).hasSize(2);
+        assertThat(exercises.at("/0/exercise/createdBy/username").isTextual()).isTrue();
+        assertThat(exercises.at("/1/exercise/createdBy").isNull()).isTrue();
+    }
+
+    // Runs the query once untimed, so one-off work such as cache warm-up is not counted
+    private long statementsFor(String document, String variable, Long value, int expectedRows) throws Exception {
+        execute(document, variable, value);
+        statistics.clear();
+        JsonNode response = execute(document, variable, value);
+        assertThat(response.at("/data").elements().next().get("content")).hasSize(expectedRows);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private JsonNode execute(String document, String variable, Long value) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("query", document, "variables", Map.of(variable, value)));
+        MvcResult pending = mockMvc.perform(post("/graphql").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn();
+        MvcResult result = pending.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(pending)).andReturn()
+                : pending;
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        String json = result.getResponse().getContentAsString();
+        JsonNode response = objectMapper.readTree(json);
+        assertThat(response.path("errors")).isEmpty();
+        return response;
+    }
+
+    private Long createUser() {
+        String name = "u" + UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+        return jdbcTemplate.queryForObject("INSERT INTO users (username, email, password_hash, status) " +
+                "VALUES (?, ?, 'x', 'ACTIVE') RETURNING id", Long.class, name, name + "@example.com");
+    }
+
+    private Long createExercise(Long createdBy) {
+        return jdbcTemplate.queryForObject("INSERT INTO exercises (name, category, created_by) " +
+                "VALUES (?, 'STRENGTH', ?) RETURNING id", Long.class, "Exercise " + UUID.randomUUID(), createdBy);
+    }
+
+    // Every workout gets one exercise with a creator and one without
+    private List<Long> createWorkouts(Long userId, int count) {
+        List<Long> ids = jdbcTemplate.queryForList("INSERT INTO workouts (user_id, title, start_time) " +
+                "SELECT ?, 'Workout ' || n, NOW() - n * INTERVAL '1 day' FROM generate_series(1, ?) n " +
+                "RETURNING id", Long.class, userId, count);
+        for (Long id : ids) {
+            jdbcTemplate.update("INSERT INTO workout_exercises (workout_id, exercise_id, order_index) " +
+                    "VALUES (?, ?, 0), (?, ?, 1)", id, exerciseWithCreator, id, exerciseWithoutCreator);
+        }
+        return ids;
+    }
+
+    private void comment(Long workoutId, Long userId) {
+        jdbcTemplate.update("INSERT INTO comments (user_id, parent_type, parent_id, content) " +
+                "VALUES (?, 'WORKOUT', ?, 'Nice')", userId, workoutId);
+    }
+}
@@ -0,0 +1,82 @@
+package com.fitness.service;
+
+import com.fitness.model.Exercise;
+import com.fitness.repository.ExerciseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExerciseCatalogTest {
+
+    private static final List<String> NAMES = List.of("Bench Press", "Incline Bench Press", "Dumbbell Bench Press",
+            "Squat", "Front Squat", "Deadlift", "Romanian Deadlift", "Pull-up", "Push-up", "Barbell Row",
+            "T-Bar Row", "Running", "Cycling", "Rowing Machine", "Plank");
+
+    private final ExerciseRepository exerciseRepository = mock(ExerciseRepository.class);
+    private final ExerciseCatalog catalog = new ExerciseCatalog(exerciseRepository);
+
+    @BeforeEach
+    void setUp() {
+        List<Exercise> exercises = new ArrayList<>();
+        for (int i = 0; i < NAMES.size(); i++) {
+            Exercise.ExerciseCategory category = NAMES.get(i).equals("Running") || NAMES.get(i).equals("Cycling")
+                    ? Exercise.ExerciseCategory.CARDIO : Exercise.ExerciseCategory.STRENGTH;
+            exercises.add(Exercise.builder().id((long) i + 1).name(NAMES.get(i)).category(category).build());
+        }
+        when(exerciseRepository.findAll()).thenReturn(exercises);
+        when(exerciseRepository.fingerprint()).thenReturn("1");
+        catalog.refresh();
+    }
+
+    @Test
+    void ranksExactAndPrefixMatchesFirst() {
+        assertThat(names("bench press", 3)).startsWith("Bench Press")
+                .containsExactlyInAnyOrder("Bench Press", "Dumbbell Bench Press", "Incline Bench Press");
+        assertThat(names("squat", 10)).containsExactly("Squat", "Front Squat");
+    }
+
+    @Test
+    void findsEveryNameContainingTheQuery() {
+        for (String query : List.of("ench", "ench pre", "bar row", "dead", "lift", "row", "ush up", "t bar")) {
+            String normalized = ExerciseCatalog.normalize(query);
+            List<String> expected = NAMES.stream()
+                    .filter(name -> ExerciseCatalog.normalize(name).contains(normalized))
+                    .toList();
+            assertThat(names(query, 100)).as(query).containsAll(expected);
+        }
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertThat(names("benhc pres", 1)).containsExactly("Bench Press");
+        assertThat(names("deadlfit", 2)).contains("Deadlift");
+    }
+
+    @Test
+    void matchesShortQueriesAsWordPrefixes() {
+        assertThat(names("sq", 10)).containsExactlyInAnyOrder("Squat", "Front Squat");
+        assertThat(names("p", 10)).contains("Plank", "Pull-up", "Push-up", "Bench Press");
+    }
+
+    @Test
+    void filtersByCategoryAndLimits() {
+        assertThat(catalog.search("ing", Exercise.ExerciseCategory.CARDIO, 10))
+                .extracting(Exercise::getName).containsExactlyInAnyOrder("Running", "Cycling");
+        assertThat(names("press", 2)).hasSize(2);
+    }
+
+    @Test
+    void returnsNothingForUnknownTerms() {
+        assertThat(names("zzzz", 10)).isEmpty();
+    }
+
+    private List<String> names(String query, int limit) {
+        return catalog.search(query, null, limit).stream().map(Exercise::getName).toList();
+    }
+}
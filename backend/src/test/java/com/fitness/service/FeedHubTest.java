@@ -0,0 +1,184 @@
+package com.fitness.service;
+
+import com.fitness.config.LocalFeedBroker;
+import com.fitness.model.ActivityFeed;
+import com.fitness.model.User;
+import com.fitness.repository.ActivityFeedRepository;
+import com.fitness.repository.FollowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FeedHubTest {
+
+    private final ActivityFeedRepository activityFeedRepository = mock(ActivityFeedRepository.class);
+    private final FollowRepository followRepository = mock(FollowRepository.class);
+    private final Map<Long, ActivityFeed> activities = new ConcurrentHashMap<>();
+    private final List<Disposable> subscriptions = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private FeedHub hub;
+
+    @BeforeEach
+    void setUp() {
+        start(10, 64);
+        when(activityFeedRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<ActivityFeed> found = new ArrayList<>();
+            for (Object id : invocation.<Iterable<?>>getArgument(0)) {
+                found.add(activities.get((Long) id));
+            }
+            return found;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+        hub.destroy();
+    }
+
+    @Test
+    void deliversActivityToTheOriginAndItsFollowersButPrivateActivityOnlyToTheOrigin() {
+        when(followRepository.findFolloweeIds(5L)).thenReturn(List.of(4L));
+        List<Long> alice = received(4L);
+        List<Long> bob = received(5L);
+        List<Long> carol = received(12L);
+        awaitChannels(3);
+
+        hub.activitiesCreated(List.of(activity(2, 4L, ActivityFeed.Visibility.PRIVATE).getId(),
+                activity(1, 4L, ActivityFeed.Visibility.PUBLIC).getId()));
+
+        await().until(() -> alice.size() == 2);
+        assertThat(alice).containsExactly(1L, 2L);
+        await().until(() -> !bob.isEmpty());
+        assertThat(bob).containsExactly(1L);
+        assertThat(carol).isEmpty();
+    }
+
+    @Test
+    void followChangesUpdateTheIndexOfOpenConnections() {
+        List<Long> bob = received(5L);
+        awaitChannels(1);
+
+        hub.followChanged(5L, 4L, true);
+        hub.activitiesCreated(List.of(activity(1, 4L, ActivityFeed.Visibility.PUBLIC).getId()));
+        await().until(() -> bob.contains(1L));
+
+        hub.followChanged(5L, 4L, false);
+        hub.activitiesCreated(List.of(activity(2, 4L, ActivityFeed.Visibility.PUBLIC).getId()));
+        // Delivery is ordered, so once the marker arrives the unfollowed activity was skipped
+        hub.activitiesCreated(List.of(activity(3, 5L, ActivityFeed.Visibility.PUBLIC).getId()));
+        await().until(() -> bob.contains(3L));
+        assertThat(bob).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void keepsTheNewestActivityForASlowSubscriber() {
+        start(10, 2);
+        Slow slow = new Slow();
+        hub.updates(4L).subscribe(slow);
+        subscriptions.add(slow);
+        awaitChannels(1);
+
+        for (long id = 1; id <= 4; id++) {
+            hub.activitiesCreated(List.of(activity(id, 4L, ActivityFeed.Visibility.PUBLIC).getId()));
+        }
+        await().until(() -> meterRegistry.counter("feed.subscription.dropped").count() == 2);
+
+        slow.request(10);
+        await().until(() -> slow.ids.size() == 2);
+        assertThat(slow.ids).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void dropsEventsThatDoNotFitTheDeliveryQueue() throws InterruptedException {
+        start(1, 64);
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(activityFeedRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            delivering.countDown();
+            release.await();
+            return new ArrayList<>();
+        });
+        subscriptions.add(hub.updates(4L).subscribe());
+        awaitChannels(1);
+
+        // The first occupies the delivery thread, the second fills the queue
+        hub.activitiesCreated(List.of(1L));
+        assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+        hub.activitiesCreated(List.of(2L));
+        hub.activitiesCreated(List.of(3L));
+        release.countDown();
+
+        assertThat(meterRegistry.counter("feed.delivery.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsTheQueryWhenNobodyIsConnected() {
+        hub.activitiesCreated(List.of(activity(1, 4L, ActivityFeed.Visibility.PUBLIC).getId()));
+        hub.followChanged(5L, 4L, true);
+
+        verifyNoInteractions(activityFeedRepository);
+        assertThat(meterRegistry.counter("feed.delivery.dropped").count()).isZero();
+    }
+
+    private void start(int deliveryQueueCapacity, int bufferSize) {
+        if (hub != null) {
+            hub.destroy();
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new FeedHub(activityFeedRepository, followRepository, new LocalFeedBroker(), meterRegistry,
+                bufferSize, deliveryQueueCapacity);
+    }
+
+    private List<Long> received(Long userId) {
+        List<Long> ids = new CopyOnWriteArrayList<>();
+        subscriptions.add(hub.updates(userId).subscribe(activity -> ids.add(activity.getId())));
+        return ids;
+    }
+
+    // Connections register on another thread
+    private void awaitChannels(int users) {
+        await().until(() -> meterRegistry.get("feed.subscription.users").gauge().value() == users);
+    }
+
+    private ActivityFeed activity(long id, Long originUserId, ActivityFeed.Visibility visibility) {
+        ActivityFeed activity = ActivityFeed.builder().id(id).originUser(User.builder().id(originUserId).build())
+                .visibility(visibility).build();
+        activities.put(id, activity);
+        return activity;
+    }
+
+    // Requests nothing until told to
+    private static final class Slow extends BaseSubscriber<ActivityFeed> {
+
+        final List<Long> ids = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(ActivityFeed activity) {
+            ids.add(activity.getId());
+        }
+    }
+}
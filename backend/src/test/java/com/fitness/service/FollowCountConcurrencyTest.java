@@ -0,0 +1,109 @@
+package com.fitness.service;
+
+import com.fitness.TestcontainersConfiguration;
+import com.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many users follow and unfollow one account at once; the sharded counters must add up to the
+ * follows that actually exist, both before and after compaction.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class FollowCountConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int FOLLOWERS = 200;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentFollowsAndUnfollowsOfOneAccountAddUp() throws Exception {
+        Long celebrity = createUser();
+        List<Long> followers = IntStream.range(0, FOLLOWERS).mapToObj(i -> createUser()).toList();
+        List<Long> early = followers.subList(0, FOLLOWERS / 2);
+        List<Long> late = followers.subList(FOLLOWERS / 2, FOLLOWERS);
+
+        runConcurrently(early.stream().map(id -> task(() -> followService.followUser(id, celebrity))).toList());
+
+        // Half of the early followers leave while the late ones arrive
+        List<Callable<Void>> mixed = new ArrayList<>();
+        early.stream().filter(id -> id % 2 == 0)
+                .forEach(id -> mixed.add(task(() -> followService.unfollowUser(id, celebrity))));
+        late.forEach(id -> mixed.add(task(() -> followService.followUser(id, celebrity))));
+        runConcurrently(mixed);
+
+        long expected = early.stream().filter(id -> id % 2 != 0).count() + late.size();
+        assertThat(followCount(celebrity)).isEqualTo(expected);
+        assertThat(followersCount(celebrity)).isEqualTo(expected);
+        assertThat(followingCount(late.get(0))).isEqualTo(1);
+
+        followService.compactFollowCounts();
+
+        assertThat(followersCount(celebrity)).isEqualTo(expected);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_counter_shards WHERE user_id = ?",
+                Long.class, celebrity)).isZero();
+    }
+
+    private static Callable<Void> task(Runnable action) {
+        return () -> {
+            action.run();
+            return null;
+        };
+    }
+
+    private static void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private long followersCount(Long userId) {
+        return counts(userId).getFollowersCount();
+    }
+
+    private long followingCount(Long userId) {
+        return counts(userId).getFollowingCount();
+    }
+
+    private UserRepository.FollowCounts counts(Long userId) {
+        return followService.getFollowCounts(List.of(userId)).get(userId);
+    }
+
+    private long followCount(Long followeeId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM follows WHERE followee_id = ?", Long.class,
+                followeeId);
+    }
+
+    private Long createUser() {
+        String name = "u" + UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+        return jdbcTemplate.queryForObject("INSERT INTO users (username, email, password_hash, status) " +
+                "VALUES (?, ?, 'x', 'ACTIVE') RETURNING id", Long.class, name, name + "@example.com");
+    }
+}
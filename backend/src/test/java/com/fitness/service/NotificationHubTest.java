@@ -0,0 +1,130 @@
+package com.fitness.service;
+
+import com.fitness.model.Notification;
+import com.fitness.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationHubTest {
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final NotificationHub hub = new NotificationHub(notificationRepository, meterRegistry, 2);
+    private final List<Disposable> subscriptions = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void skipsTheQueryWhenNoRecipientIsSubscribed() {
+        hub.notificationsCreated(Map.of(5L, List.of(1L)));
+
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void deliversNotificationsToTheirRecipientInOrder() {
+        List<Long> bob = received(5L);
+        List<Long> carol = received(6L);
+        when(notificationRepository.findAllById(anyIterable()))
+                .thenReturn(new ArrayList<>(List.of(notification(2), notification(1))));
+
+        hub.notificationsCreated(Map.of(5L, List.of(2L, 1L)));
+
+        assertThat(bob).containsExactly(1L, 2L);
+        assertThat(carol).isEmpty();
+    }
+
+    @Test
+    void keepsTheNewestNotificationsForASlowSubscriber() {
+        Slow slow = new Slow();
+        hub.notifications(5L).subscribe(slow);
+        subscriptions.add(slow);
+        for (long id = 1; id <= 4; id++) {
+            when(notificationRepository.findAllById(anyIterable()))
+                    .thenReturn(new ArrayList<>(List.of(notification(id))));
+            hub.notificationsCreated(Map.of(5L, List.of(id)));
+        }
+
+        slow.request(10);
+
+        assertThat(slow.ids).containsExactly(3L, 4L);
+        assertThat(meterRegistry.counter("notifications.subscription.dropped").count()).isEqualTo(2);
+    }
+
+    @Test
+    void pushesTheUnreadCountAndThenOnlyChanges() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(5L)).thenReturn(3L, 3L, 4L);
+        List<Long> counts = new CopyOnWriteArrayList<>();
+        subscriptions.add(hub.unreadCounts(5L).subscribe(counts::add));
+        await().until(() -> !counts.isEmpty());
+
+        hub.unreadCountChanged(5L);
+        hub.unreadCountChanged(5L);
+
+        assertThat(counts).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void dropsTheChannelWithTheLastSubscription() {
+        Disposable first = hub.notifications(5L).subscribe();
+        Disposable second = hub.unreadCounts(5L).subscribe();
+        assertThat(channels()).isEqualTo(1);
+
+        first.dispose();
+        assertThat(channels()).isEqualTo(1);
+        second.dispose();
+        assertThat(channels()).isZero();
+        hub.notificationsCreated(Map.of(5L, List.of(1L)));
+        verify(notificationRepository, never()).findAllById(anyIterable());
+    }
+
+    private List<Long> received(Long userId) {
+        List<Long> ids = new CopyOnWriteArrayList<>();
+        subscriptions.add(hub.notifications(userId).subscribe(notification -> ids.add(notification.getId())));
+        return ids;
+    }
+
+    private double channels() {
+        return meterRegistry.get("notifications.subscription.users").gauge().value();
+    }
+
+    private static Notification notification(long id) {
+        return Notification.builder().id(id).build();
+    }
+
+    // Requests nothing until told to
+    private static final class Slow extends BaseSubscriber<Notification> {
+
+        final List<Long> ids = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(Notification notification) {
+            ids.add(notification.getId());
+        }
+    }
+}
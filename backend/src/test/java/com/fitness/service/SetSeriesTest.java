@@ -0,0 +1,107 @@
+package com.fitness.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SetSeriesTest {
+
+    private final float[] min = new float[2];
+    private final float[] max = new float[2];
+    private final double[] sum = new double[2];
+    private final int[] count = new int[2];
+
+    @Test
+    void aggregatesEachBucketAndSkipsEntriesWithoutTheMetric() {
+        SetSeries series = new SetSeries();
+        series.append(10, 1, 100, 5, 3);
+        series.append(20, 2, 120, 3, 3);
+        series.append(30, 3, SetSeries.NO_WEIGHT, 20, 1);
+        series.append(60, 4, 80, 8, 1);
+
+        int aggregated = series.aggregate(0, 100, SetSeries.Metric.WEIGHT, min, max, sum, count);
+
+        assertThat(aggregated).isEqualTo(3);
+        assertThat(count).containsExactly(2, 1);
+        assertThat(min).containsExactly(100, 80);
+        assertThat(max).containsExactly(120, 80);
+        assertThat(sum).containsExactly(220, 80);
+
+        series.aggregate(0, 100, SetSeries.Metric.REPS, min, max, sum, count);
+        assertThat(count).containsExactly(3, 1);
+        assertThat(sum).containsExactly(15 + 9 + 20, 8);
+    }
+
+    @Test
+    void derivesVolumeAndTheEpleyEstimate() {
+        SetSeries series = new SetSeries();
+        series.append(10, 1, 100, 1, 1);
+        series.append(60, 2, 90, 10, SetSeries.NO_COUNT);
+
+        series.aggregate(0, 100, SetSeries.Metric.ESTIMATED_ONE_REP_MAX, min, max, sum, count);
+        assertThat(max[0]).isEqualTo(100);
+        assertThat(max[1]).isCloseTo(120, within(0.01f));
+
+        // A missing set count is one set
+        series.aggregate(0, 100, SetSeries.Metric.VOLUME, min, max, sum, count);
+        assertThat(sum).containsExactly(100, 900);
+    }
+
+    @Test
+    void leavesEmptyBucketsEmpty() {
+        SetSeries series = new SetSeries();
+        series.append(80, 1, 100, 5, 1);
+
+        series.aggregate(0, 100, SetSeries.Metric.WEIGHT, min, max, sum, count);
+
+        assertThat(count).containsExactly(0, 1);
+        assertThat(min[0]).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(max[0]).isEqualTo(Float.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    void insertsAWorkoutBetweenExistingOnesOnlyOnce() {
+        SetSeries series = new SetSeries();
+        series.append(10, 1, 100, 5, 1);
+        series.append(70, 3, 100, 5, 1);
+
+        series.addWorkout(40, 2, new float[] { 60, 70 }, new int[] { 5, 5 }, new int[] { 1, 1 });
+        series.addWorkout(40, 2, new float[] { 60, 70 }, new int[] { 5, 5 }, new int[] { 1, 1 });
+
+        assertThat(series.size()).isEqualTo(4);
+        assertThat(series.firstTime()).isEqualTo(10);
+        assertThat(series.lastTime()).isEqualTo(70);
+        series.aggregate(0, 100, SetSeries.Metric.WEIGHT, min, max, sum, count);
+        assertThat(count).containsExactly(3, 1);
+        assertThat(min).containsExactly(60, 100);
+    }
+
+    @Test
+    void removesOnlyTheEntriesOfTheGivenWorkout() {
+        SetSeries series = new SetSeries();
+        series.append(10, 1, 100, 5, 1);
+        series.append(40, 2, 60, 5, 1);
+        series.append(40, 3, 70, 5, 1);
+        series.append(40, 2, 65, 5, 1);
+        series.append(70, 4, 110, 5, 1);
+
+        series.removeWorkout(40, 2);
+
+        assertThat(series.size()).isEqualTo(3);
+        series.aggregate(0, 100, SetSeries.Metric.WEIGHT, min, max, sum, count);
+        assertThat(count).containsExactly(2, 1);
+        assertThat(sum).containsExactly(170, 110);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        SetSeries series = new SetSeries();
+        for (int i = 0; i < 40; i++) {
+            series.addWorkout(i, i, new float[] { 50 }, new int[] { 5 }, new int[] { 1 });
+        }
+
+        assertThat(series.aggregate(0, 40, SetSeries.Metric.WEIGHT, min, max, sum, count)).isEqualTo(40);
+        assertThat(count).containsExactly(20, 20);
+    }
+}
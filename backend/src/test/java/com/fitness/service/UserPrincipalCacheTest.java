@@ -0,0 +1,53 @@
+package com.fitness.service;
+
+import com.fitness.model.User;
+import com.fitness.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserPrincipalCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserPrincipalCache cache = new UserPrincipalCache(userRepository, new SimpleMeterRegistry(),
+            100, Duration.ofMinutes(5));
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("old")));
+
+        cache.getByUsername("alice");
+        cache.getByUsername("alice");
+
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void dropsALoadThatOverlappedAnInvalidation() {
+        // The first load read the row before the updating transaction committed
+        when(userRepository.findByUsername("alice"))
+                .thenAnswer(invocation -> {
+                    cache.invalidate("alice");
+                    return Optional.of(user("old"));
+                })
+                .thenReturn(Optional.of(user("new")));
+
+        assertThat(cache.getByUsername("alice").getBio()).isEqualTo("old");
+
+        assertThat(cache.getByUsername("alice").getBio()).isEqualTo("new");
+        assertThat(cache.getByUsername("alice").getBio()).isEqualTo("new");
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    private static User user(String bio) {
+        return User.builder().id(4L).username("alice").bio(bio).build();
+    }
+}
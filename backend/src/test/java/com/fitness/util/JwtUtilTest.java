@@ -0,0 +1,79 @@
+package com.fitness.util;
+
+import com.fitness.model.User;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String PREVIOUS_SECRET = "5A7134743777217A25432A462D4A614E645267556B58703273357638792F423F";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, "primary", "");
+
+    @Test
+    void acceptsIssuedToken() {
+        String token = jwtUtil.generateToken(User.builder().username("alice").build());
+
+        assertThat(jwtUtil.validateToken(token)).get()
+                .extracting(JwtUtil.TokenClaims::subject).isEqualTo("alice");
+    }
+
+    @Test
+    void rejectsTokenWithoutExpiration() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "primary")
+                .setSubject("alice")
+                .setIssuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtil.validateToken(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownKeyId() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "retired")
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtil.validateToken(token)).isEmpty();
+    }
+
+    @Test
+    void acceptsTokenSignedWithPreviousKey() {
+        String token = new JwtUtil(PREVIOUS_SECRET, 60_000, "2023", "")
+                .generateToken(User.builder().username("alice").build());
+
+        JwtUtil rotated = new JwtUtil(SECRET, 60_000, "primary", "2023:" + PREVIOUS_SECRET);
+
+        assertThat(rotated.validateToken(token)).get()
+                .extracting(JwtUtil.TokenClaims::subject).isEqualTo("alice");
+        assertThat(jwtUtil.validateToken(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsPreviousKeyUnderTheActiveKeyId() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "primary")
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(PREVIOUS_SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        JwtUtil rotated = new JwtUtil(SECRET, 60_000, "primary", "2023:" + PREVIOUS_SECRET);
+
+        assertThat(rotated.validateToken(token)).isEmpty();
+    }
+}